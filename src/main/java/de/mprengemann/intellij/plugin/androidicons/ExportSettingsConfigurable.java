@@ -0,0 +1,149 @@
+package de.mprengemann.intellij.plugin.androidicons;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
+import de.mprengemann.intellij.plugin.androidicons.controllers.defaults.IDefaultsController;
+import de.mprengemann.intellij.plugin.androidicons.images.PngFilter;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Settings page for the export pipeline, i.e. everything which affects how fast and with how much memory images are
+ * exported, but not which images are exported.
+ */
+public class ExportSettingsConfigurable implements Configurable {
+
+    private static final int MAX_EXPORT_THREADS = 256;
+    private static final int MAX_EXPORT_CACHE_SIZE = 16 * 1024;
+    private static final int STREAMING_THRESHOLD_STEP = 1024 * 1024;
+
+    private JPanel panel;
+    private JSpinner exportThreadsSpinner;
+    private JSpinner memoryBudgetSpinner;
+    private JSpinner streamingThresholdSpinner;
+    private JSpinner exportCacheSizeSpinner;
+    private JSpinner compressionLevelSpinner;
+    private JComboBox pngFilterSpinner;
+    private JCheckBox ninePatchDebugCheckBox;
+    private int rows;
+
+    @Nls
+    @Override
+    public String getDisplayName() {
+        return "Android Drawable Importer";
+    }
+
+    @Nullable
+    @Override
+    public String getHelpTopic() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public JComponent createComponent() {
+        exportThreadsSpinner = new JSpinner(new SpinnerNumberModel(1, 1, MAX_EXPORT_THREADS, 1));
+        memoryBudgetSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 100, 5));
+        streamingThresholdSpinner = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE,
+                                                                        STREAMING_THRESHOLD_STEP));
+        exportCacheSizeSpinner = new JSpinner(new SpinnerNumberModel(0, 0, MAX_EXPORT_CACHE_SIZE, 64));
+        compressionLevelSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 9, 1));
+        pngFilterSpinner = new JComboBox(PngFilter.values());
+        ninePatchDebugCheckBox = new JCheckBox("Dump the intermediate images of 9-patch exports");
+
+        panel = new JPanel(new GridBagLayout());
+        rows = 0;
+        addRow("Export threads:", exportThreadsSpinner);
+        addRow("Memory budget (% of the heap, 0 = unlimited):", memoryBudgetSpinner);
+        addRow("Stream sources larger than (pixels, 0 = never):", streamingThresholdSpinner);
+        addRow("Export cache size (MB, 0 = disabled):", exportCacheSizeSpinner);
+        addRow("PNG compression level (0-9):", compressionLevelSpinner);
+        addRow("PNG row filter:", pngFilterSpinner);
+        addRow(null, ninePatchDebugCheckBox);
+
+        final GridBagConstraints filler = new GridBagConstraints();
+        filler.gridy = rows;
+        filler.weighty = 1;
+        panel.add(Box.createVerticalGlue(), filler);
+        reset();
+        return panel;
+    }
+
+    private void addRow(@Nullable String label, JComponent component) {
+        final GridBagConstraints constraints = new GridBagConstraints();
+        constraints.gridy = rows++;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.insets = new Insets(2, 0, 2, 8);
+        if (label != null) {
+            constraints.gridx = 0;
+            panel.add(new JLabel(label), constraints);
+            constraints.gridx = 1;
+        } else {
+            constraints.gridx = 0;
+            constraints.gridwidth = 2;
+        }
+        constraints.weightx = 1;
+        panel.add(component, constraints);
+    }
+
+    @Override
+    public boolean isModified() {
+        final IDefaultsController defaultsController = getDefaultsController();
+        return getValue(exportThreadsSpinner) != defaultsController.getExportThreads() ||
+               getValue(memoryBudgetSpinner) != defaultsController.getExportMemoryBudget() ||
+               getValue(streamingThresholdSpinner) != defaultsController.getStreamingThreshold() ||
+               getValue(exportCacheSizeSpinner) != defaultsController.getExportCacheSize() ||
+               getValue(compressionLevelSpinner) != defaultsController.getCompressionLevel() ||
+               pngFilterSpinner.getSelectedItem() != defaultsController.getPngFilter() ||
+               ninePatchDebugCheckBox.isSelected() != defaultsController.isNinePatchDebug();
+    }
+
+    @Override
+    public void apply() throws ConfigurationException {
+        final IDefaultsController defaultsController = getDefaultsController();
+        defaultsController.setExportThreads(getValue(exportThreadsSpinner));
+        defaultsController.setExportMemoryBudget(getValue(memoryBudgetSpinner));
+        defaultsController.setStreamingThreshold(getValue(streamingThresholdSpinner));
+        defaultsController.setExportCacheSize(getValue(exportCacheSizeSpinner));
+        defaultsController.setCompressionLevel(getValue(compressionLevelSpinner));
+        defaultsController.setPngFilter((PngFilter) pngFilterSpinner.getSelectedItem());
+        defaultsController.setNinePatchDebug(ninePatchDebugCheckBox.isSelected());
+    }
+
+    @Override
+    public void reset() {
+        final IDefaultsController defaultsController = getDefaultsController();
+        exportThreadsSpinner.setValue(defaultsController.getExportThreads());
+        memoryBudgetSpinner.setValue(defaultsController.getExportMemoryBudget());
+        streamingThresholdSpinner.setValue(defaultsController.getStreamingThreshold());
+        exportCacheSizeSpinner.setValue(defaultsController.getExportCacheSize());
+        compressionLevelSpinner.setValue(defaultsController.getCompressionLevel());
+        pngFilterSpinner.setSelectedItem(defaultsController.getPngFilter());
+        ninePatchDebugCheckBox.setSelected(defaultsController.isNinePatchDebug());
+    }
+
+    @Override
+    public void disposeUIResources() {
+        panel = null;
+        exportThreadsSpinner = null;
+        memoryBudgetSpinner = null;
+        streamingThresholdSpinner = null;
+        exportCacheSizeSpinner = null;
+        compressionLevelSpinner = null;
+        pngFilterSpinner = null;
+        ninePatchDebugCheckBox = null;
+    }
+
+    private static int getValue(JSpinner spinner) {
+        return ((Number) spinner.getValue()).intValue();
+    }
+
+    private static IDefaultsController getDefaultsController() {
+        final IconApplication container = ApplicationManager.getApplication().getComponent(IconApplication.class);
+        return container.getControllerFactory().getDefaultsController();
+    }
+}
@@ -1,35 +1,37 @@
 package de.mprengemann.intellij.plugin.androidicons;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.intellij.openapi.components.ApplicationComponent;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
-import com.intellij.util.io.ZipUtil;
 import de.mprengemann.intellij.plugin.androidicons.controllers.DefaultControllerFactory;
 import de.mprengemann.intellij.plugin.androidicons.controllers.IControllerFactory;
+import de.mprengemann.intellij.plugin.androidicons.controllers.icons.IIconPackController;
 import de.mprengemann.intellij.plugin.androidicons.model.IconPack;
-import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
+import de.mprengemann.intellij.plugin.androidicons.resources.AssetStore;
 import de.mprengemann.intellij.plugin.androidicons.resources.ResourceLoader;
+import de.mprengemann.intellij.plugin.androidicons.util.ThumbnailCache;
 import org.apache.commons.io.FileUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class IconApplication implements ApplicationComponent {
 
     private static final String TAG = IconApplication.class.getSimpleName();
     private static final Logger LOGGER = Logger.getInstance(TAG);
+    private static final long AWAIT_INTERVAL_MS = 100;
     private IControllerFactory controllerFactory;
+    private volatile boolean androidIconsPrepared;
+    private volatile boolean materialIconsPrepared;
 
     @NotNull
     @Override
@@ -39,70 +41,116 @@ public class IconApplication implements ApplicationComponent {
 
     @Override
     public void initComponent() {
-        IconPack androidIcons = null;
-        IconPack materialIcons = null;
+        boolean update = true;
         try {
             final InputStream bundledIconPackPropertiesFile = ResourceLoader.getBundledResourceStream("icon_packs.properties");
             final Properties bundledIconPackProperties = new Properties();
             bundledIconPackProperties.load(bundledIconPackPropertiesFile);
 
-            final boolean export;
             final File localIconPackPropertiesFile = new File(ResourceLoader.getExportPath(), "icon_packs.properties");
-            if (!localIconPackPropertiesFile.exists()) {
-                export = true;
-            } else {
+            if (localIconPackPropertiesFile.exists()) {
                 final Properties localIconPackProperties = new Properties();
                 localIconPackProperties.load(FileUtils.openInputStream(localIconPackPropertiesFile));
 
-                export = Integer.parseInt(bundledIconPackProperties.getProperty("version")) !=
+                update = Integer.parseInt(bundledIconPackProperties.getProperty("version")) !=
                          Integer.parseInt(localIconPackProperties.getProperty("version"));
             }
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
 
-            final File contentFile = ResourceLoader.getBundledResource("content.json");
-            assert contentFile != null;
-            final FileReader fileReader = new FileReader(contentFile);
-            final Type listType = new TypeToken<ArrayList<IconPack>>() {}.getType();
-            GsonBuilder gsonBuilder = new GsonBuilder();
-            gsonBuilder.registerTypeAdapter(Resolution.class, new Resolution.Deserializer());
-            final Gson gson = gsonBuilder.create();
-            final List<IconPack> iconPacks = gson.fromJson(fileReader, listType);
-            androidIcons = iconPacks.get(0);
-            materialIcons = iconPacks.get(1);
-
-            if (export) {
-                new Task.Modal(null, "Prepare Android Drawable Importer", false) {
-                    @Override
-                    public void run(@NotNull ProgressIndicator progressIndicator) {
-                        progressIndicator.setIndeterminate(true);
-                        final File archiveFile = ResourceLoader.getBundledResource("icon_packs.zip");
+        final boolean removeOutdatedFiles = update;
+        new Task.Backgroundable(null, "Preparing icon packs", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator progressIndicator) {
+                try {
+                    final IControllerFactory controllerFactory = getControllerFactory();
+                    prepare(progressIndicator, controllerFactory.getMaterialIconsController(), removeOutdatedFiles);
+                    materialIconsPrepared = true;
+                    prepare(progressIndicator, controllerFactory.getAndroidIconsController(), removeOutdatedFiles);
+                    androidIconsPrepared = true;
+
+                    if (removeOutdatedFiles) {
+                        // The version is only stored after the update, an interrupted update continues on the next start
                         final File bundledResource = ResourceLoader.getBundledResource("icon_packs.properties");
                         final File localResource = new File(ResourceLoader.getExportPath(), "icon_packs.properties");
-
-                        try {
-                            assert archiveFile != null;
-                            ZipUtil.extract(archiveFile, ResourceLoader.getExportPath(), null, true);
-                            assert bundledResource != null;
-                            FileUtils.copyFile(bundledResource, localResource);
-                        } catch (IOException e) {
-                            LOGGER.error(e);
-                        }
+                        assert bundledResource != null;
+                        FileUtils.copyFile(bundledResource, localResource);
                     }
-                }.queue();
+                } catch (IOException e) {
+                    LOGGER.error(e);
+                } finally {
+                    // Unprepared packs still work, they're just slower on first use
+                    materialIconsPrepared = true;
+                    androidIconsPrepared = true;
+                }
+            }
+        }.queue();
+    }
+
+    private static void prepare(ProgressIndicator progressIndicator,
+                                IIconPackController iconPackController,
+                                boolean removeOutdatedFiles) {
+        final IconPack iconPack = iconPackController.getIconPack();
+        if (iconPack == null) {
+            return;
+        }
+        progressIndicator.checkCanceled();
+        progressIndicator.setText(String.format("Preparing %s", iconPack.getName()));
+        if (removeOutdatedFiles) {
+            final int removed = AssetStore.getInstance().removeOutdatedFiles(iconPack.getPath());
+            if (removed > 0) {
+                LOGGER.info(String.format("Removed %d outdated files of %s", removed, iconPack.getId()));
             }
-        } catch (Exception e) {
-            LOGGER.error(e);
         }
+        awaitPreparation(progressIndicator, ThumbnailCache.prepareAtlas(iconPackController));
+    }
 
-        controllerFactory = new DefaultControllerFactory(androidIcons, materialIcons);
+    /**
+     * Waits until the atlas is open, so the icon pack is only reported as prepared afterwards. A cancelled wait leaves
+     * the preparation running in the background.
+     */
+    private static void awaitPreparation(ProgressIndicator progressIndicator, @Nullable Future<?> preparation) {
+        if (preparation == null) {
+            return;
+        }
+        while (true) {
+            progressIndicator.checkCanceled();
+            try {
+                preparation.get(AWAIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException ignored) {
+            } catch (ExecutionException e) {
+                LOGGER.warn(e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
     }
 
     @Override
-    public void disposeComponent() {
-        controllerFactory.tearDown();
-        controllerFactory = null;
+    public synchronized void disposeComponent() {
+        if (controllerFactory != null) {
+            controllerFactory.tearDown();
+            controllerFactory = null;
+        }
+        AssetStore.release();
     }
 
-    public IControllerFactory getControllerFactory() {
+    public boolean isAndroidIconsPrepared() {
+        return androidIconsPrepared;
+    }
+
+    public boolean isMaterialIconsPrepared() {
+        return materialIconsPrepared;
+    }
+
+    public synchronized IControllerFactory getControllerFactory() {
+        if (controllerFactory == null) {
+            controllerFactory = new DefaultControllerFactory();
+        }
         return controllerFactory;
     }
 }
\ No newline at end of file
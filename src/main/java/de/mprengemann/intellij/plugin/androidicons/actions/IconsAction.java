@@ -16,8 +16,10 @@ package de.mprengemann.intellij.plugin.androidicons.actions;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.DataKeys;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
+import de.mprengemann.intellij.plugin.androidicons.IconApplication;
 import de.mprengemann.intellij.plugin.androidicons.dialogs.IconImporter;
 import de.mprengemann.intellij.plugin.androidicons.util.AndroidFacetUtils;
 import icons.AndroidIcons;
@@ -25,8 +27,10 @@ import org.jetbrains.annotations.NotNull;
 
 public class IconsAction extends AnAction {
 
+    private static final String TEXT = "Icon Pack Drawable Importer";
+
     public IconsAction() {
-        super("Icon Pack Drawable Importer",
+        super(TEXT,
               "Creates a new Android Asset by the use of Google\'s Material Icons or Android Icons",
               AndroidIcons.Android);
     }
@@ -43,6 +47,10 @@ public class IconsAction extends AnAction {
     @Override
     public void update(@NotNull AnActionEvent e) {
         AndroidFacetUtils.updateActionVisibility(e);
+        final IconApplication container = ApplicationManager.getApplication().getComponent(IconApplication.class);
+        final boolean prepared = container.isAndroidIconsPrepared() && container.isMaterialIconsPrepared();
+        e.getPresentation().setEnabled(prepared);
+        e.getPresentation().setText(prepared ? TEXT : TEXT + " (preparing icon packs...)");
     }
 
 }
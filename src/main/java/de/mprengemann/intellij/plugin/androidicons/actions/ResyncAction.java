@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import de.mprengemann.intellij.plugin.androidicons.IconApplication;
+import de.mprengemann.intellij.plugin.androidicons.controllers.defaults.IDefaultsController;
+import de.mprengemann.intellij.plugin.androidicons.images.ImageEncoder;
+import de.mprengemann.intellij.plugin.androidicons.images.RefactoringTask;
+import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
+import de.mprengemann.intellij.plugin.androidicons.model.ImportManifest;
+import de.mprengemann.intellij.plugin.androidicons.util.AndroidFacetUtils;
+import icons.AndroidIcons;
+import org.jetbrains.android.facet.AndroidFacet;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResyncAction extends AnAction {
+
+    private static final String TITLE = "Re-sync Drawables";
+    private static final Logger LOGGER = Logger.getInstance(ResyncAction.class);
+
+    public ResyncAction() {
+        super(TITLE,
+              "Regenerates all imported drawables whose source or export parameters changed.",
+              AndroidIcons.Android);
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        final Project project = getEventProject(event);
+        final Module module = event.getData(DataKeys.MODULE);
+        final AndroidFacet facet = AndroidFacetUtils.getCurrentFacet(project, module);
+        if (project == null || facet == null) {
+            return;
+        }
+
+        final File baseDir = project.getBasePath() == null ? null : new File(project.getBasePath());
+        final List<File> resRoots = new ArrayList<File>();
+        for (VirtualFile resourceDirectory : facet.getAllResourceDirectories()) {
+            resRoots.add(new File(resourceDirectory.getPath()));
+        }
+        // Drawables encoded with other settings than the current ones are regenerated as well
+        final IconApplication container = ApplicationManager.getApplication().getComponent(IconApplication.class);
+        final IDefaultsController defaultsController = container.getControllerFactory().getDefaultsController();
+        final ImageEncoder encoder = new ImageEncoder(defaultsController.getCompressionLevel(),
+                                                      defaultsController.getPngFilter());
+
+        new Task.Backgroundable(project, "Checking Imported Drawables...", true) {
+            private final List<ImageInformation> outdated = new ArrayList<ImageInformation>();
+            private boolean tracked;
+
+            @Override
+            public void run(@NotNull ProgressIndicator progressIndicator) {
+                progressIndicator.setIndeterminate(true);
+                for (File resRoot : resRoots) {
+                    progressIndicator.checkCanceled();
+                    final ImportManifest manifest = ImportManifest.read(resRoot, baseDir);
+                    tracked |= !manifest.isEmpty();
+                    try {
+                        outdated.addAll(manifest.getOutdated(resRoot, encoder));
+                    } catch (IOException e) {
+                        LOGGER.error(e);
+                    }
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (outdated.isEmpty()) {
+                    Messages.showInfoMessage(project,
+                                             tracked ? "All imported drawables are up to date."
+                                                     : "There are no imported drawables to re-sync.",
+                                             TITLE);
+                    return;
+                }
+                final RefactoringTask task = new RefactoringTask(project);
+                task.setOverwriteExisting(true);
+                for (ImageInformation information : outdated) {
+                    task.addImage(information);
+                }
+                task.queue();
+            }
+        }.queue();
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        AndroidFacetUtils.updateActionVisibility(e);
+    }
+}
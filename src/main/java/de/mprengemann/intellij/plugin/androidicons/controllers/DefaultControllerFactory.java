@@ -11,6 +11,9 @@ import de.mprengemann.intellij.plugin.androidicons.controllers.icons.materialico
 import de.mprengemann.intellij.plugin.androidicons.controllers.settings.ISettingsController;
 import de.mprengemann.intellij.plugin.androidicons.controllers.settings.SettingsController;
 import de.mprengemann.intellij.plugin.androidicons.model.IconPack;
+import de.mprengemann.intellij.plugin.androidicons.resources.AssetCatalog;
+
+import java.util.List;
 
 public class DefaultControllerFactory implements IControllerFactory {
 
@@ -20,10 +23,12 @@ public class DefaultControllerFactory implements IControllerFactory {
     private ISettingsController settingsController;
     private IIconsImporterController iconImporterController;
 
-    public DefaultControllerFactory(IconPack androidIcons,
-                                    IconPack materialIcons) {
-            androidIconsController = new AndroidIconsController(androidIcons);
-            materialIconsController = new MaterialIconsController(materialIcons);
+    private void initIconPacks() {
+        final List<IconPack> iconPacks = AssetCatalog.load();
+        final IconPack androidIcons = iconPacks.size() > 0 ? iconPacks.get(0) : null;
+        final IconPack materialIcons = iconPacks.size() > 1 ? iconPacks.get(1) : null;
+        androidIconsController = new AndroidIconsController(androidIcons);
+        materialIconsController = new MaterialIconsController(materialIcons);
     }
 
     @Override
@@ -36,12 +41,18 @@ public class DefaultControllerFactory implements IControllerFactory {
     }
 
     @Override
-    public IAndroidIconsController getAndroidIconsController() {
+    public synchronized IAndroidIconsController getAndroidIconsController() {
+        if (androidIconsController == null) {
+            initIconPacks();
+        }
         return androidIconsController;
     }
 
     @Override
-    public IMaterialIconsController getMaterialIconsController() {
+    public synchronized IMaterialIconsController getMaterialIconsController() {
+        if (materialIconsController == null) {
+            initIconPacks();
+        }
         return materialIconsController;
     }
 
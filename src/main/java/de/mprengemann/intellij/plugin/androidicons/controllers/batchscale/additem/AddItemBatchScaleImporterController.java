@@ -10,10 +10,10 @@ import de.mprengemann.intellij.plugin.androidicons.model.Format;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
 import de.mprengemann.intellij.plugin.androidicons.util.ExportNameUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.ImageClassifier;
+import de.mprengemann.intellij.plugin.androidicons.util.ImageMetadata;
 import de.mprengemann.intellij.plugin.androidicons.util.RefactorUtils;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -42,19 +42,27 @@ public class AddItemBatchScaleImporterController implements IAddItemBatchScaleIm
     public AddItemBatchScaleImporterController(IDefaultsController defaultsController,
                                                String exportRoot,
                                                File file) {
+        this(defaultsController, exportRoot, file, ImageClassifier.classify(file));
+    }
+
+    public AddItemBatchScaleImporterController(IDefaultsController defaultsController,
+                                               String exportRoot,
+                                               File file,
+                                               ImageClassifier.Classification classification) {
         this.observers = new HashSet<AddItemBatchScaleDialogObserver>();
         this.targetResolutions = defaultsController.getResolutions();
         init(file);
 
-        final String fileName = file.getName();
-        exportName = ExportNameUtils.getExportNameFromFilename(fileName);
-        sourceResolution = defaultsController.getSourceResolution();
+        exportName = ExportNameUtils.getExportName(classification.getExportName());
+        sourceResolution = classification.getResolution() != null ? classification.getResolution() :
+                           defaultsController.getSourceResolution();
         algorithm = defaultsController.getAlgorithm();
         method = defaultsController.getMethod();
         this.exportRoot = exportRoot;
-        isNinePatch = fileName.endsWith(".9.png");
+        isNinePatch = classification.isNinePatch();
         format = isNinePatch ? Format.PNG : defaultsController.getFormat();
-        destination = defaultsController.getDestination();
+        destination = classification.getDestination() != null ? classification.getDestination() :
+                      defaultsController.getDestination();
     }
 
     public AddItemBatchScaleImporterController(Resolution sourceResolution,
@@ -83,12 +91,12 @@ public class AddItemBatchScaleImporterController implements IAddItemBatchScaleIm
     private void init(File file) {
         try {
             LOGGER.info(String.format("Adding file %s", file));
-            BufferedImage image = ImageIO.read(file);
+            final ImageMetadata metadata = ImageMetadata.read(file);
             imageFile = file;
-            originalImageWidth = image.getWidth();
-            targetWidth = image.getWidth();
-            targetHeight = image.getHeight();
-            aspectRatio = (float) image.getHeight() / (float) originalImageWidth;
+            originalImageWidth = metadata.getWidth();
+            targetWidth = metadata.getWidth();
+            targetHeight = metadata.getHeight();
+            aspectRatio = (float) metadata.getHeight() / (float) originalImageWidth;
         } catch (Exception e) {
             LOGGER.error(e);
         }
@@ -1,6 +1,7 @@
 package de.mprengemann.intellij.plugin.androidicons.controllers.defaults;
 
 import de.mprengemann.intellij.plugin.androidicons.controllers.settings.ISettingsController;
+import de.mprengemann.intellij.plugin.androidicons.images.PngFilter;
 import de.mprengemann.intellij.plugin.androidicons.images.ResizeAlgorithm;
 import de.mprengemann.intellij.plugin.androidicons.model.Destination;
 import de.mprengemann.intellij.plugin.androidicons.model.Format;
@@ -23,6 +24,13 @@ public class DefaultsController implements IDefaultsController {
     public static final String DEFAULT_METHOD = DEFAULT_ALGORITHM.getMethods().get(0);
     public static final Format DEFAULT_FORMAT = Format.PNG;
     public static final Destination DEFAULT_DESTINATION = Destination.DRAWABLE;
+    public static final int DEFAULT_EXPORT_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_STREAMING_THRESHOLD = 4096 * 4096;
+    public static final boolean DEFAULT_NINE_PATCH_DEBUG = false;
+    public static final int DEFAULT_EXPORT_CACHE_SIZE = 256;
+    public static final int DEFAULT_EXPORT_MEMORY_BUDGET = 25;
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+    public static final PngFilter DEFAULT_PNG_FILTER = PngFilter.ADAPTIVE;
 
     private Set<Resolution> resolutions;
     private Resolution sourceResolution;
@@ -34,6 +42,13 @@ public class DefaultsController implements IDefaultsController {
     private String method;
     private Format format;
     private Destination destination;
+    private int exportThreads = DEFAULT_EXPORT_THREADS;
+    private int streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+    private boolean ninePatchDebug = DEFAULT_NINE_PATCH_DEBUG;
+    private int exportCacheSize = DEFAULT_EXPORT_CACHE_SIZE;
+    private int exportMemoryBudget = DEFAULT_EXPORT_MEMORY_BUDGET;
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+    private PngFilter pngFilter = DEFAULT_PNG_FILTER;
 
     private String size;
     private String color;
@@ -141,6 +156,83 @@ public class DefaultsController implements IDefaultsController {
         settingsController.saveDestination(this.destination);
     }
 
+    @Override
+    public int getExportThreads() {
+        return exportThreads;
+    }
+
+    @Override
+    public void setExportThreads(int exportThreads) {
+        this.exportThreads = exportThreads;
+        settingsController.saveExportThreads(this.exportThreads);
+    }
+
+    @Override
+    public int getStreamingThreshold() {
+        return streamingThreshold;
+    }
+
+    @Override
+    public void setStreamingThreshold(int streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+        settingsController.saveStreamingThreshold(this.streamingThreshold);
+    }
+
+    @Override
+    public boolean isNinePatchDebug() {
+        return ninePatchDebug;
+    }
+
+    @Override
+    public void setNinePatchDebug(boolean ninePatchDebug) {
+        this.ninePatchDebug = ninePatchDebug;
+        settingsController.saveNinePatchDebug(this.ninePatchDebug);
+    }
+
+    @Override
+    public int getExportCacheSize() {
+        return exportCacheSize;
+    }
+
+    @Override
+    public void setExportCacheSize(int exportCacheSize) {
+        this.exportCacheSize = exportCacheSize;
+        settingsController.saveExportCacheSize(this.exportCacheSize);
+    }
+
+    @Override
+    public int getExportMemoryBudget() {
+        return exportMemoryBudget;
+    }
+
+    @Override
+    public void setExportMemoryBudget(int exportMemoryBudget) {
+        this.exportMemoryBudget = exportMemoryBudget;
+        settingsController.saveExportMemoryBudget(this.exportMemoryBudget);
+    }
+
+    @Override
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    @Override
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        settingsController.saveCompressionLevel(this.compressionLevel);
+    }
+
+    @Override
+    public PngFilter getPngFilter() {
+        return pngFilter;
+    }
+
+    @Override
+    public void setPngFilter(PngFilter pngFilter) {
+        this.pngFilter = pngFilter;
+        settingsController.savePngFilter(this.pngFilter);
+    }
+
     @Override
     public void restore() {
         imageAsset = settingsController.getImageAsset();
@@ -150,6 +242,13 @@ public class DefaultsController implements IDefaultsController {
         format = settingsController.getFormat(DEFAULT_FORMAT);
         destination = settingsController.getDestination(DEFAULT_DESTINATION);
         method = settingsController.getMethod(DEFAULT_METHOD);
+        exportThreads = settingsController.getExportThreads(DEFAULT_EXPORT_THREADS);
+        streamingThreshold = settingsController.getStreamingThreshold(DEFAULT_STREAMING_THRESHOLD);
+        ninePatchDebug = settingsController.isNinePatchDebug(DEFAULT_NINE_PATCH_DEBUG);
+        exportCacheSize = settingsController.getExportCacheSize(DEFAULT_EXPORT_CACHE_SIZE);
+        exportMemoryBudget = settingsController.getExportMemoryBudget(DEFAULT_EXPORT_MEMORY_BUDGET);
+        compressionLevel = settingsController.getCompressionLevel(DEFAULT_COMPRESSION_LEVEL);
+        pngFilter = settingsController.getPngFilter(DEFAULT_PNG_FILTER);
         color = settingsController.getColor();
         size = settingsController.getSize();
     }
@@ -1,5 +1,6 @@
 package de.mprengemann.intellij.plugin.androidicons.controllers.defaults;
 
+import de.mprengemann.intellij.plugin.androidicons.images.PngFilter;
 import de.mprengemann.intellij.plugin.androidicons.images.ResizeAlgorithm;
 import de.mprengemann.intellij.plugin.androidicons.model.Destination;
 import de.mprengemann.intellij.plugin.androidicons.model.Format;
@@ -36,6 +37,27 @@ public interface IDefaultsController {
     Destination getDestination();
     void setDestination(Destination destination);
 
+    int getExportThreads();
+    void setExportThreads(int exportThreads);
+
+    int getStreamingThreshold();
+    void setStreamingThreshold(int streamingThreshold);
+
+    boolean isNinePatchDebug();
+    void setNinePatchDebug(boolean ninePatchDebug);
+
+    int getExportCacheSize();
+    void setExportCacheSize(int exportCacheSize);
+
+    int getExportMemoryBudget();
+    void setExportMemoryBudget(int exportMemoryBudget);
+
+    int getCompressionLevel();
+    void setCompressionLevel(int compressionLevel);
+
+    PngFilter getPngFilter();
+    void setPngFilter(PngFilter pngFilter);
+
     void restore();
     void tearDown();
 }
@@ -33,7 +33,11 @@ public interface IIconsImporterController extends IController<IconsImporterObser
 
     File getImageFile(ImageAsset asset, String color, Resolution resolution);
 
-    File getThumbnailFile(ImageAsset asset);
+    String getThumbnailPath(ImageAsset asset);
+
+    Resolution getThumbnailResolution(ImageAsset asset);
+
+    void prepareThumbnails();
 
     File getSelectedImageFile();
 
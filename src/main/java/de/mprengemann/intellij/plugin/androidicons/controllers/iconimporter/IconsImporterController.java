@@ -12,6 +12,7 @@ import de.mprengemann.intellij.plugin.androidicons.model.ImageAsset;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
 import de.mprengemann.intellij.plugin.androidicons.util.RefactorUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.ThumbnailCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
@@ -207,9 +208,22 @@ public class IconsImporterController implements IIconsImporterController {
     }
 
     @Override
-    public File getThumbnailFile(ImageAsset asset) {
+    public String getThumbnailPath(ImageAsset asset) {
         final IIconPackController iconPackController = getControllerForIconPackId(asset.getIconPack());
-        return iconPackController.getImageFile(asset, "black", iconPackController.getThumbnailResolution());
+        return iconPackController.getImagePath(asset, "black", iconPackController.getThumbnailResolution());
+    }
+
+    @Override
+    public Resolution getThumbnailResolution(ImageAsset asset) {
+        return getControllerForIconPackId(asset.getIconPack()).getThumbnailResolution();
+    }
+
+    @Override
+    public void prepareThumbnails() {
+        if (androidIconsController != null) {
+            ThumbnailCache.prepareAtlas(androidIconsController);
+        }
+        ThumbnailCache.prepareAtlas(materialIconsController);
     }
 
     @Override
@@ -19,6 +19,10 @@ public interface IIconPackController {
 
     File getImageFile(ImageAsset asset, String color, String size, Resolution resolution);
 
+    String getImagePath(ImageAsset asset, String color, Resolution resolution);
+
+    String getImagePath(ImageAsset asset, String color, String size, Resolution resolution);
+
     void tearDown();
 
     List<String> getCategories();
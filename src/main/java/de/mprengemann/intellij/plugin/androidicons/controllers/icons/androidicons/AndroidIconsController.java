@@ -1,9 +1,10 @@
 package de.mprengemann.intellij.plugin.androidicons.controllers.icons.androidicons;
 
+import com.intellij.openapi.util.io.FileUtil;
 import de.mprengemann.intellij.plugin.androidicons.model.IconPack;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageAsset;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
-import de.mprengemann.intellij.plugin.androidicons.resources.ResourceLoader;
+import de.mprengemann.intellij.plugin.androidicons.resources.AssetStore;
 
 import java.io.File;
 import java.util.List;
@@ -11,6 +12,8 @@ import java.util.Locale;
 
 public class AndroidIconsController implements IAndroidIconsController {
 
+    private static final String MASTER_COLOR = "black";
+
     private IconPack iconPack;
 
     public AndroidIconsController(IconPack iconPack) {
@@ -59,6 +62,18 @@ public class AndroidIconsController implements IAndroidIconsController {
 
     @Override
     public File getImageFile(ImageAsset asset, String color, String size, Resolution resolution) {
+        return AssetStore.getInstance().getTintedFile(getImagePath(asset, color, size, resolution),
+                                                      getImagePath(asset, MASTER_COLOR, size, resolution),
+                                                      color);
+    }
+
+    @Override
+    public String getImagePath(ImageAsset asset, String color, Resolution resolution) {
+        return getImagePath(asset, color, null, resolution);
+    }
+
+    @Override
+    public String getImagePath(ImageAsset asset, String color, String size, Resolution resolution) {
         if (resolution == Resolution.ANYDPI) {
             throw new IllegalStateException("Vectors not supported by AndroidIcons");
         }
@@ -66,7 +81,7 @@ public class AndroidIconsController implements IAndroidIconsController {
                                                color,
                                                resolution.toString().toLowerCase(Locale.ENGLISH),
                                                asset.getName());
-        return ResourceLoader.getAssetResource(new File(iconPack.getPath(), localPath).getPath());
+        return FileUtil.toSystemIndependentName(new File(iconPack.getPath(), localPath).getPath());
     }
 
     @Override
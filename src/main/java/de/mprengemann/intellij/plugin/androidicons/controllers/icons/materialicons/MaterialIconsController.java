@@ -3,10 +3,11 @@ package de.mprengemann.intellij.plugin.androidicons.controllers.icons.materialic
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.intellij.ide.BrowserUtil;
+import com.intellij.openapi.util.io.FileUtil;
 import de.mprengemann.intellij.plugin.androidicons.model.IconPack;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageAsset;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
-import de.mprengemann.intellij.plugin.androidicons.resources.ResourceLoader;
+import de.mprengemann.intellij.plugin.androidicons.resources.AssetStore;
 
 import java.io.File;
 import java.util.HashMap;
@@ -16,6 +17,8 @@ import java.util.Map;
 
 public class MaterialIconsController implements IMaterialIconsController {
 
+    private static final String MASTER_COLOR = "black";
+
     private IconPack iconPack;
     private Map<String, List<ImageAsset>> categoryMap;
 
@@ -85,13 +88,30 @@ public class MaterialIconsController implements IMaterialIconsController {
 
     @Override
     public File getImageFile(ImageAsset asset, String color, String size, Resolution resolution) {
+        final String path = getImagePath(asset, color, size, resolution);
+        if (resolution == Resolution.ANYDPI) {
+            return AssetStore.getInstance().getFile(path);
+        }
+        final String masterColor = asset.getColors().contains(MASTER_COLOR) ? MASTER_COLOR : asset.getColors().get(0);
+        return AssetStore.getInstance().getTintedFile(path,
+                                                      getImagePath(asset, masterColor, size, resolution),
+                                                      color);
+    }
+
+    @Override
+    public String getImagePath(ImageAsset asset, String color, Resolution resolution) {
+        return getImagePath(asset, color, "24dp", resolution);
+    }
+
+    @Override
+    public String getImagePath(ImageAsset asset, String color, String size, Resolution resolution) {
         final String localPath;
         if (resolution == Resolution.ANYDPI) {
             localPath = getVectorFilePath(asset);
         } else {
             localPath = getImageFilePath(asset, color, size, resolution);
         }
-        return ResourceLoader.getAssetResource(new File(iconPack.getPath(), localPath).getPath());
+        return FileUtil.toSystemIndependentName(new File(iconPack.getPath(), localPath).getPath());
     }
 
     private String getImageFilePath(ImageAsset asset, String color, String size, Resolution resolution) {
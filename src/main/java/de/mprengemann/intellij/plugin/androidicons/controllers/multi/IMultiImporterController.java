@@ -6,6 +6,7 @@ import de.mprengemann.intellij.plugin.androidicons.images.RefactoringTask;
 import de.mprengemann.intellij.plugin.androidicons.model.Format;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
+import de.mprengemann.intellij.plugin.androidicons.util.ImageClassifier;
 
 import java.io.File;
 import java.util.List;
@@ -21,13 +22,13 @@ public interface IMultiImporterController extends IController<MultiImporterObser
 
     RefactoringTask getTask(Project project);
 
-    void addZipImage(File file, Resolution resolution);
+    void addZipImage(File archive, String entry, ImageClassifier.Classification classification);
 
     Map<Resolution, List<ImageInformation>> getZipImages();
 
     void resetZipInformation();
 
-    RefactoringTask getZipTask(Project project, File tempDir);
+    RefactoringTask getZipTask(Project project);
 
     void setExportName(String exportName);
 
@@ -8,9 +8,8 @@ import de.mprengemann.intellij.plugin.androidicons.model.Format;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
 import de.mprengemann.intellij.plugin.androidicons.util.ExportNameUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.ImageClassifier;
 import de.mprengemann.intellij.plugin.androidicons.util.TextUtils;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -64,32 +63,32 @@ public class MultiImporterController implements IMultiImporterController {
 
     @Override
     public void addImage(File source, Resolution resolution) {
+        final ImageClassifier.Classification classification = ImageClassifier.classify(source.getName(), null);
         imageInformationMap.put(resolution, ImageInformation.newBuilder()
                                                             .setImageFile(source)
-                                                            .setNinePatch(source.getName().endsWith(".9.png"))
+                                                            .setNinePatch(classification.isNinePatch())
                                                             .setTargetResolution(resolution)
                                                             .build());
         mostRecentResolution = resolution;
         setFormat(format);
         if (TextUtils.isEmpty(exportName)) {
-            exportName = ExportNameUtils.getExportNameFromFilename(source.getName());
+            exportName = ExportNameUtils.getExportName(classification.getExportName());
         }
         notifyUpdated();
     }
 
     @Override
-    public void addZipImage(File source, Resolution resolution) {
+    public void addZipImage(File archive, String entry, ImageClassifier.Classification classification) {
+        final Resolution resolution = classification.getResolution();
         if (!zipImageInformationMap.containsKey(resolution)) {
             zipImageInformationMap.put(resolution, new ArrayList<ImageInformation>());
         }
-        final String fileName = FilenameUtils.getBaseName(source.getName())
-                                             .replaceAll("(?i)[-_]+" + resolution.toString(), "");
         zipImageInformationMap.get(resolution).add(ImageInformation.newBuilder()
-                                                                   .setImageFile(source)
+                                                                   .setArchiveEntry(archive, entry)
                                                                    .setTargetResolution(resolution)
                                                                    .setFormat(format)
-                                                                   .setNinePatch(source.getName().endsWith(".9.png"))
-                                                                   .setExportName(fileName)
+                                                                   .setNinePatch(classification.isNinePatch())
+                                                                   .setExportName(classification.getExportName())
                                                                    .build());
     }
 
@@ -117,8 +116,8 @@ public class MultiImporterController implements IMultiImporterController {
     }
 
     @Override
-    public RefactoringTask getZipTask(Project project, File tempDir) {
-        RefactoringTask task = new ZipRefactoringTask(project, tempDir);
+    public RefactoringTask getZipTask(Project project) {
+        RefactoringTask task = new ZipRefactoringTask(project);
         for (Resolution resolution : zipImageInformationMap.keySet()) {
             for (ImageInformation imageInformation : zipImageInformationMap.get(resolution)) {
                 task.addImage(ImageInformation.newBuilder(imageInformation)
@@ -196,11 +195,8 @@ public class MultiImporterController implements IMultiImporterController {
     }
 
     private static class ZipRefactoringTask extends RefactoringTask {
-        private File tempDir;
-
-        public ZipRefactoringTask(Project project, File tempDir) {
+        public ZipRefactoringTask(Project project) {
             super(project);
-            this.tempDir = tempDir;
         }
 
         @Override
@@ -209,8 +205,8 @@ public class MultiImporterController implements IMultiImporterController {
         }
 
         @Override
-        protected void onPostExecute() {
-            FileUtils.deleteQuietly(tempDir);
+        protected boolean isRecordedInManifest() {
+            return false;
         }
     }
 }
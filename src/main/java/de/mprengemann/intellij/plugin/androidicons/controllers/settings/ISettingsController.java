@@ -3,6 +3,7 @@ package de.mprengemann.intellij.plugin.androidicons.controllers.settings;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import de.mprengemann.intellij.plugin.androidicons.controllers.IController;
+import de.mprengemann.intellij.plugin.androidicons.images.PngFilter;
 import de.mprengemann.intellij.plugin.androidicons.images.ResizeAlgorithm;
 import de.mprengemann.intellij.plugin.androidicons.model.Destination;
 import de.mprengemann.intellij.plugin.androidicons.model.Format;
@@ -48,4 +49,25 @@ public interface ISettingsController extends IController<SettingsObserver> {
     void saveDestination(Destination destination);
     Destination getDestination(Destination defaultDestination);
 
+    void saveExportThreads(int exportThreads);
+    int getExportThreads(int defaultExportThreads);
+
+    void saveStreamingThreshold(int streamingThreshold);
+    int getStreamingThreshold(int defaultStreamingThreshold);
+
+    void saveNinePatchDebug(boolean ninePatchDebug);
+    boolean isNinePatchDebug(boolean defaultNinePatchDebug);
+
+    void saveExportCacheSize(int exportCacheSize);
+    int getExportCacheSize(int defaultExportCacheSize);
+
+    void saveExportMemoryBudget(int exportMemoryBudget);
+    int getExportMemoryBudget(int defaultExportMemoryBudget);
+
+    void saveCompressionLevel(int compressionLevel);
+    int getCompressionLevel(int defaultCompressionLevel);
+
+    void savePngFilter(PngFilter pngFilter);
+    PngFilter getPngFilter(PngFilter defaultPngFilter);
+
 }
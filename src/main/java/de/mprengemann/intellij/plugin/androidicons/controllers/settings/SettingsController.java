@@ -6,6 +6,7 @@ import com.intellij.openapi.util.io.StreamUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.util.Base64;
+import de.mprengemann.intellij.plugin.androidicons.images.PngFilter;
 import de.mprengemann.intellij.plugin.androidicons.images.ResizeAlgorithm;
 import de.mprengemann.intellij.plugin.androidicons.model.Destination;
 import de.mprengemann.intellij.plugin.androidicons.model.Format;
@@ -35,6 +36,15 @@ public class SettingsController implements ISettingsController {
     private static final String ASSET = "asset";
     private static final String FORMAT = "format";
     private static final String DESTINATION = "destination";
+    // The export settings are stored per application, they're shared with other plugins and thus prefixed
+    private static final String EXPORT_PREFIX = "de.mprengemann.intellij.plugin.androidicons.";
+    private static final String EXPORT_THREADS = EXPORT_PREFIX + "exportThreads";
+    private static final String STREAMING_THRESHOLD = EXPORT_PREFIX + "streamingThreshold";
+    private static final String NINE_PATCH_DEBUG = EXPORT_PREFIX + "ninePatchDebug";
+    private static final String EXPORT_CACHE_SIZE = EXPORT_PREFIX + "exportCacheSize";
+    private static final String EXPORT_MEMORY_BUDGET = EXPORT_PREFIX + "exportMemoryBudget";
+    private static final String COMPRESSION_LEVEL = EXPORT_PREFIX + "compressionLevel";
+    private static final String PNG_FILTER = EXPORT_PREFIX + "pngFilter";
 
     private Set<SettingsObserver> observerSet;
     private Project project;
@@ -246,8 +256,99 @@ public class SettingsController implements ISettingsController {
         return Destination.valueOf(getOrDefault(DESTINATION, defaultDestination.toString()));
     }
 
+    @Override
+    public void saveExportThreads(int exportThreads) {
+        updateOrDelete(getApplicationProperties(), EXPORT_THREADS, exportThreads);
+    }
+
+    @Override
+    public int getExportThreads(int defaultExportThreads) {
+        return getOrDefault(getApplicationProperties(), EXPORT_THREADS, defaultExportThreads);
+    }
+
+    @Override
+    public void saveStreamingThreshold(int streamingThreshold) {
+        updateOrDelete(getApplicationProperties(), STREAMING_THRESHOLD, streamingThreshold);
+    }
+
+    @Override
+    public int getStreamingThreshold(int defaultStreamingThreshold) {
+        return getOrDefault(getApplicationProperties(), STREAMING_THRESHOLD, defaultStreamingThreshold);
+    }
+
+    @Override
+    public void saveNinePatchDebug(boolean ninePatchDebug) {
+        updateOrDelete(getApplicationProperties(), NINE_PATCH_DEBUG, ninePatchDebug);
+    }
+
+    @Override
+    public boolean isNinePatchDebug(boolean defaultNinePatchDebug) {
+        return Boolean.parseBoolean(getOrDefault(getApplicationProperties(),
+                                                 NINE_PATCH_DEBUG,
+                                                 String.valueOf(defaultNinePatchDebug)));
+    }
+
+    @Override
+    public void saveExportCacheSize(int exportCacheSize) {
+        updateOrDelete(getApplicationProperties(), EXPORT_CACHE_SIZE, exportCacheSize);
+    }
+
+    @Override
+    public int getExportCacheSize(int defaultExportCacheSize) {
+        return getOrDefault(getApplicationProperties(), EXPORT_CACHE_SIZE, defaultExportCacheSize);
+    }
+
+    @Override
+    public void saveExportMemoryBudget(int exportMemoryBudget) {
+        updateOrDelete(getApplicationProperties(), EXPORT_MEMORY_BUDGET, exportMemoryBudget);
+    }
+
+    @Override
+    public int getExportMemoryBudget(int defaultExportMemoryBudget) {
+        return getOrDefault(getApplicationProperties(), EXPORT_MEMORY_BUDGET, defaultExportMemoryBudget);
+    }
+
+    @Override
+    public void saveCompressionLevel(int compressionLevel) {
+        updateOrDelete(getApplicationProperties(), COMPRESSION_LEVEL, compressionLevel);
+    }
+
+    @Override
+    public int getCompressionLevel(int defaultCompressionLevel) {
+        return getOrDefault(getApplicationProperties(), COMPRESSION_LEVEL, defaultCompressionLevel);
+    }
+
+    @Override
+    public void savePngFilter(PngFilter pngFilter) {
+        updateOrDelete(getApplicationProperties(), PNG_FILTER, pngFilter);
+    }
+
+    @Override
+    public PngFilter getPngFilter(PngFilter defaultPngFilter) {
+        return PngFilter.valueOf(getOrDefault(getApplicationProperties(), PNG_FILTER, defaultPngFilter.toString()));
+    }
+
+    /**
+     * The export settings don't depend on the project, they're edited on an application settings page and used by
+     * all projects alike.
+     */
+    private static PropertiesComponent getApplicationProperties() {
+        return PropertiesComponent.getInstance();
+    }
+
+    private static int getOrDefault(PropertiesComponent propertiesComponent, String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getOrDefault(propertiesComponent, key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     private String getOrDefault(String key, String defaultValue) {
-        PropertiesComponent propertiesComponent = PropertiesComponent.getInstance(project);
+        return getOrDefault(PropertiesComponent.getInstance(project), key, defaultValue);
+    }
+
+    private static String getOrDefault(PropertiesComponent propertiesComponent, String key, String defaultValue) {
         if (!propertiesComponent.isValueSet(key)) {
             return defaultValue;
         }
@@ -255,7 +356,10 @@ public class SettingsController implements ISettingsController {
     }
 
     private void updateOrDelete(String key, Object value) {
-        PropertiesComponent propertiesComponent = PropertiesComponent.getInstance(project);
+        updateOrDelete(PropertiesComponent.getInstance(project), key, value);
+    }
+
+    private static void updateOrDelete(PropertiesComponent propertiesComponent, String key, Object value) {
         if (value != null) {
             propertiesComponent.setValue(key, value.toString());
         } else {
@@ -42,11 +42,11 @@ import de.mprengemann.intellij.plugin.androidicons.controllers.defaults.IDefault
 import de.mprengemann.intellij.plugin.androidicons.controllers.settings.ISettingsController;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
 import de.mprengemann.intellij.plugin.androidicons.util.AndroidFacetUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.ImageClassifier;
 import de.mprengemann.intellij.plugin.androidicons.util.ImageUtils;
 import de.mprengemann.intellij.plugin.androidicons.util.MathUtils;
 import de.mprengemann.intellij.plugin.androidicons.widgets.FileBrowserField;
 import org.apache.commons.io.FilenameUtils;
-import org.intellij.images.fileTypes.ImageFileTypeManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -191,15 +191,16 @@ public class AndroidBatchScaleImporter extends DialogWrapper implements BatchSca
     }
 
     private void addSingleFileImmediately(VirtualFile file) {
-        if (!file.getFileType().equals(ImageFileTypeManager.getInstance().getImageFileType())) {
-            return;
-        }
         // Hack
         String path = file.getCanonicalPath();
-        if (path == null) {
+        if (path == null || ImageClassifier.isIgnored(path)) {
             return;
         }
         final File realFile = new File(path);
+        final ImageClassifier.Classification classification = ImageClassifier.classify(realFile);
+        if (!classification.isImage()) {
+            return;
+        }
         final ISettingsController settingsController = container.getControllerFactory().getSettingsController();
         final IDefaultsController defaultsController = container.getControllerFactory().getDefaultsController();
         final VirtualFile root = settingsController.getResourceRoot();
@@ -210,7 +211,7 @@ public class AndroidBatchScaleImporter extends DialogWrapper implements BatchSca
             exportRoot = AndroidFacetUtils.getResourcesRoot(project, module);
         }
         final IAddItemBatchScaleImporterController addItemController =
-            new AddItemBatchScaleImporterController(defaultsController, exportRoot, realFile);
+            new AddItemBatchScaleImporterController(defaultsController, exportRoot, realFile, classification);
         controller.addImage(addItemController.getSourceResolution(), addItemController.getImageInformation(project));
         addItemController.tearDown();
     }
@@ -31,7 +31,6 @@ import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.Consumer;
-import com.intellij.util.io.ZipUtil;
 import com.intellij.util.ui.UIUtil;
 import de.mprengemann.intellij.plugin.androidicons.IconApplication;
 import de.mprengemann.intellij.plugin.androidicons.controllers.multi.IMultiImporterController;
@@ -42,17 +41,14 @@ import de.mprengemann.intellij.plugin.androidicons.listeners.SimpleMouseListener
 import de.mprengemann.intellij.plugin.androidicons.model.Format;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
+import de.mprengemann.intellij.plugin.androidicons.util.ImageClassifier;
 import de.mprengemann.intellij.plugin.androidicons.util.ImageUtils;
 import de.mprengemann.intellij.plugin.androidicons.widgets.ExportNameField;
 import de.mprengemann.intellij.plugin.androidicons.widgets.FileBrowserField;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import javax.activation.MimetypesFileTypeMap;
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -60,13 +56,15 @@ import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class AndroidMultiDrawableImporter extends DialogWrapper implements MultiImporterObserver {
 
@@ -90,15 +88,6 @@ public class AndroidMultiDrawableImporter extends DialogWrapper implements Multi
             return name.contains(".zip");
         }
     };
-    private static final Resolution[] RESOLUTIONS = new Resolution[]{
-        Resolution.XXXHDPI,
-        Resolution.XXHDPI,
-        Resolution.XHDPI,
-        Resolution.HDPI,
-        Resolution.MDPI,
-        Resolution.LDPI,
-        Resolution.TVDPI
-    };
     private static final String TAG = AndroidMultiDrawableImporter.class.getSimpleName();
     private static final Logger LOGGER = Logger.getInstance(TAG);
     private final Project project;
@@ -296,48 +285,41 @@ public class AndroidMultiDrawableImporter extends DialogWrapper implements Multi
         });
     }
 
+    private static byte[] readHeader(ZipFile archive, ZipEntry entry) throws IOException {
+        final InputStream in = archive.getInputStream(entry);
+        try {
+            return ImageClassifier.readHeader(in);
+        } finally {
+            in.close();
+        }
+    }
+
     private void importZipArchive(VirtualFile virtualFile) {
         final String filePath = virtualFile.getCanonicalPath();
         if (filePath == null) {
             return;
         }
-        final File tempDir = new File(ImageInformation.getTempDir(), virtualFile.getNameWithoutExtension());
+        final File archiveFile = new File(filePath);
         final String archiveName = virtualFile.getName();
         new Task.Modal(project, "Importing Archive...", true) {
             @Override
             public void run(@NotNull final ProgressIndicator progressIndicator) {
                 progressIndicator.setIndeterminate(true);
+                ZipFile archive = null;
                 try {
-                    FileUtils.forceMkdir(tempDir);
-                    ZipUtil.extract(new File(filePath), tempDir, new FilenameFilter() {
-                        @Override
-                        public boolean accept(File dir, String name) {
-                            final String mimeType = new MimetypesFileTypeMap().getContentType(name);
-                            final String type = mimeType.split("/")[0];
-                            return type.equals("image");
-                        }
-                    }, true);
-                    progressIndicator.checkCanceled();
-
-                    final Iterator<File> fileIterator = FileUtils.iterateFiles(tempDir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
-                    while (fileIterator.hasNext()) {
-                        File file = fileIterator.next();
-                        if (file.isDirectory() || file.isHidden()) {
-                            continue;
-                        }
-                        final String fileRoot = file.getParent().toUpperCase();
-                        final String name = FilenameUtils.getBaseName(file.toString());
-                        if (name.startsWith(".") ||
-                            fileRoot.contains("__MACOSX")) {
+                    archive = new ZipFile(archiveFile);
+                    final Enumeration<? extends ZipEntry> entries = archive.entries();
+                    while (entries.hasMoreElements()) {
+                        progressIndicator.checkCanceled();
+                        final ZipEntry entry = entries.nextElement();
+                        final String entryName = entry.getName();
+                        if (entry.isDirectory() || ImageClassifier.isIgnored(entryName)) {
                             continue;
                         }
-                        for (Resolution resolution : RESOLUTIONS) {
-                            if (name.toUpperCase().contains("-" + resolution) ||
-                                name.toUpperCase().contains("_" + resolution) ||
-                                fileRoot.contains(resolution.toString())) {
-                                controller.addZipImage(file, resolution);
-                                break;
-                            }
+                        final ImageClassifier.Classification classification =
+                            ImageClassifier.classify(entryName, readHeader(archive, entry));
+                        if (classification.isImage() && classification.getResolution() != null) {
+                            controller.addZipImage(archiveFile, entryName, classification);
                         }
                     }
                     progressIndicator.checkCanceled();
@@ -360,7 +342,6 @@ public class AndroidMultiDrawableImporter extends DialogWrapper implements Multi
                             final String title = String.format("Import '%s'", archiveName);
                             if (foundResolutions.isEmpty() || finalFoundAssets == 0) {
                                 Messages.showErrorDialog("No assets found.", title);
-                                FileUtils.deleteQuietly(tempDir);
                                 return;
                             }
                             final String[] options = new String[] {"Import", "Cancel"};
@@ -374,17 +355,22 @@ public class AndroidMultiDrawableImporter extends DialogWrapper implements Multi
                                                                       0,
                                                                       Messages.getQuestionIcon());
                             if (selection == 0) {
-                                controller.getZipTask(project, tempDir).queue();
+                                controller.getZipTask(project).queue();
                                 close(0);
-                            } else {
-                                FileUtils.deleteQuietly(tempDir);
                             }
                         }
                     });
-                } catch (ProcessCanceledException e) {
-                    FileUtils.deleteQuietly(tempDir);
+                } catch (ProcessCanceledException ignored) {
                 } catch (IOException e) {
                     LOGGER.error(e);
+                } finally {
+                    if (archive != null) {
+                        try {
+                            archive.close();
+                        } catch (IOException e) {
+                            LOGGER.warn(e);
+                        }
+                    }
                 }
             }
         }.queue();
@@ -38,6 +38,7 @@ import de.mprengemann.intellij.plugin.androidicons.model.IconPack;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageAsset;
 import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
 import de.mprengemann.intellij.plugin.androidicons.util.ImageUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.ThumbnailCache;
 import de.mprengemann.intellij.plugin.androidicons.widgets.ExportNameField;
 import de.mprengemann.intellij.plugin.androidicons.widgets.FileBrowserField;
 import de.mprengemann.intellij.plugin.androidicons.widgets.ResolutionButtonModel;
@@ -190,7 +191,7 @@ public class IconImporter extends DialogWrapper implements IconsImporterObserver
         setTitle("Icon Pack Drawable Importer");
         getHelpAction().setEnabled(true);
 
-        AssetSpinnerRenderer renderer = new AssetSpinnerRenderer();
+        AssetSpinnerRenderer renderer = new AssetSpinnerRenderer(assetSpinner);
         //noinspection GtkPreferredJComboBoxRenderer
         assetSpinner.setRenderer(renderer);
         imageContainer.addComponentListener(new ComponentAdapter() {
@@ -202,6 +203,7 @@ public class IconImporter extends DialogWrapper implements IconsImporterObserver
         });
 
         initCheckBoxes();
+        controller.prepareThumbnails();
         initSearch();
 
         controller.addObserver(this);
@@ -216,7 +218,7 @@ public class IconImporter extends DialogWrapper implements IconsImporterObserver
         for (ImageAsset imageAsset : imageAssets) {
             searchField.addItem(imageAsset);
         }
-        searchField.setRenderer(new AssetSpinnerRenderer());
+        searchField.setRenderer(new AssetSpinnerRenderer(searchField));
         comboboxSpeedSearch = new ComboboxSpeedSearch(searchField) {
             @Override
             protected String getElementText(Object element) {
@@ -428,13 +430,21 @@ public class IconImporter extends DialogWrapper implements IconsImporterObserver
 
     private class AssetSpinnerRenderer extends ListCellRendererWrapper<ImageAsset> {
         private final Icon EMPTY_ICON = EmptyIcon.ICON_18;
+        private final JComboBox comboBox;
+
+        public AssetSpinnerRenderer(JComboBox comboBox) {
+            this.comboBox = comboBox;
+        }
 
         @Override
         public void customize(JList list, ImageAsset imageAsset, int index, boolean selected, boolean hasFocus) {
             LayeredIcon layeredIcon = new LayeredIcon(2);
-            File imageFile = controller.getThumbnailFile(imageAsset);
-            if (imageFile != null && imageFile.exists()) {
-                final ImageIcon icon = new ImageIcon(imageFile.getAbsolutePath());
+            final Icon icon = ThumbnailCache.get(imageAsset,
+                                                 controller.getThumbnailResolution(imageAsset),
+                                                 controller.getThumbnailPath(imageAsset),
+                                                 list,
+                                                 comboBox);
+            if (icon != null) {
                 layeredIcon.setIcon(icon, 1, (- icon.getIconWidth() + EMPTY_ICON.getIconWidth())/2, (EMPTY_ICON.getIconHeight() - icon.getIconHeight())/2);
             }
             setIcon(layeredIcon);
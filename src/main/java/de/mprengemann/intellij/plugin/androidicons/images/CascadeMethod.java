@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import org.imgscalr.Scalr;
+
+/**
+ * Methods of the cascading resize. Next to the Scalr method used for every single step, each method defines the
+ * quality tolerance of the cascade: the maximum number of resampling generations between the master and any export.
+ */
+public enum CascadeMethod {
+    SPEED("Speed", Scalr.Method.SPEED, Integer.MAX_VALUE),
+    BALANCED("Balanced", Scalr.Method.BALANCED, 3),
+    QUALITY("Quality", Scalr.Method.QUALITY, 2);
+
+    private final String name;
+    private final Scalr.Method scalrMethod;
+    private final int maxGenerations;
+
+    CascadeMethod(String name, Scalr.Method scalrMethod, int maxGenerations) {
+        this.name = name;
+        this.scalrMethod = scalrMethod;
+        this.maxGenerations = maxGenerations;
+    }
+
+    public Scalr.Method getScalrMethod() {
+        return scalrMethod;
+    }
+
+    public int getMaxGenerations() {
+        return maxGenerations;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static CascadeMethod from(String method) {
+        for (CascadeMethod cascadeMethod : values()) {
+            if (cascadeMethod.name.equals(method)) {
+                return cascadeMethod;
+            }
+        }
+        throw new IllegalArgumentException("Method doesn't exist: " + method);
+    }
+}
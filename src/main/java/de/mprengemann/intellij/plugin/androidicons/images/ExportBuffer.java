@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import com.intellij.openapi.diagnostic.Logger;
+import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the encoded exports until they are written within the final write command. Up to the given amount of bytes
+ * is kept in memory, everything beyond is spilled into temporary files, so large batches don't pile up on the heap.
+ */
+class ExportBuffer {
+
+    private static final String TAG = ExportBuffer.class.getSimpleName();
+    private static final Logger LOGGER = Logger.getInstance(TAG);
+    private static final String SPILL_PREFIX = "export";
+    private static final String SPILL_SUFFIX = ".tmp";
+
+    private final File spillDir;
+    private final long maxMemory;
+    private final Map<ImageInformation, byte[]> contents = new HashMap<ImageInformation, byte[]>();
+    private final Map<ImageInformation, File> spilled = new HashMap<ImageInformation, File>();
+    private long memory;
+
+    ExportBuffer(File spillDir, long maxMemory) {
+        this.spillDir = spillDir;
+        this.maxMemory = maxMemory;
+    }
+
+    public synchronized void put(ImageInformation information, byte[] content) {
+        remove(information);
+        if (memory + content.length <= maxMemory) {
+            contents.put(information, content);
+            memory += content.length;
+            return;
+        }
+        File spill = null;
+        try {
+            FileUtils.forceMkdir(spillDir);
+            spill = File.createTempFile(SPILL_PREFIX, SPILL_SUFFIX, spillDir);
+            FileUtils.writeByteArrayToFile(spill, content);
+            spilled.put(information, spill);
+        } catch (IOException e) {
+            LOGGER.warn(e);
+            FileUtils.deleteQuietly(spill);
+            // Rather exceed the memory limit than lose the export
+            contents.put(information, content);
+            memory += content.length;
+        }
+    }
+
+    /**
+     * Removes the export of the given image from the buffer.
+     *
+     * @return its content or null, if there is none
+     */
+    @Nullable
+    public synchronized byte[] take(ImageInformation information) throws IOException {
+        final byte[] content = contents.remove(information);
+        if (content != null) {
+            memory -= content.length;
+            return content;
+        }
+        final File spill = spilled.remove(information);
+        if (spill == null) {
+            return null;
+        }
+        try {
+            return FileUtils.readFileToByteArray(spill);
+        } finally {
+            FileUtils.deleteQuietly(spill);
+        }
+    }
+
+    public synchronized void clear() {
+        for (File spill : spilled.values()) {
+            FileUtils.deleteQuietly(spill);
+        }
+        spilled.clear();
+        contents.clear();
+        memory = 0;
+    }
+
+    private void remove(ImageInformation information) {
+        final byte[] content = contents.remove(information);
+        if (content != null) {
+            memory -= content.length;
+        }
+        FileUtils.deleteQuietly(spilled.remove(information));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s{memory=%d, inMemory=%d, spilled=%d}",
+                             TAG, memory, contents.size(), spilled.size());
+    }
+}
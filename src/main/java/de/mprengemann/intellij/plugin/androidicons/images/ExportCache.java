@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import com.intellij.openapi.diagnostic.Logger;
+import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
+import de.mprengemann.intellij.plugin.androidicons.util.HashUtils;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent cache of encoded exports. Entries are addressed by the hash of the source bytes and all parameters,
+ * which affect the resulting pixels. The least recently used entries are evicted, once the cache exceeds its
+ * maximum size, the access time is tracked via the last modification date of an entry.
+ */
+public class ExportCache {
+
+    private static final String TAG = ExportCache.class.getSimpleName();
+    private static final Logger LOGGER = Logger.getInstance(TAG);
+    private static final int CACHE_VERSION = 4;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File cacheDir;
+    private final long maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ExportCache(File cacheDir, long maxSize) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @param cascade all cascaded targets of the source group, if this is one of them, as its pixels depend on the
+     *                intermediate levels the larger ones leave in the pyramid
+     */
+    public String getKey(String sourceHash,
+                         ImageInformation information,
+                         boolean streamed,
+                         ImageEncoder encoder,
+                         @Nullable String cascade) {
+        return HashUtils.sha1(String.format("%d|%s|%s|%s|%s|%s|%b|%b|%s|%s",
+                                            CACHE_VERSION,
+                                            sourceHash,
+                                            Float.toString(information.getFactor()),
+                                            information.getAlgorithm(),
+                                            information.getMethod(),
+                                            information.getFormat(),
+                                            information.isNinePatch(),
+                                            streamed,
+                                            encoder,
+                                            cascade));
+    }
+
+    /**
+     * @return the cached export for the given key or null, if it isn't cached
+     */
+    @Nullable
+    public byte[] get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final File entry = new File(cacheDir, key);
+        if (!entry.isFile()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            final byte[] content = FileUtils.readFileToByteArray(entry);
+            entry.setLastModified(System.currentTimeMillis());
+            hits.incrementAndGet();
+            return content;
+        } catch (IOException e) {
+            LOGGER.warn(e);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void store(String key, byte[] content) {
+        if (!isEnabled()) {
+            return;
+        }
+        File tempEntry = null;
+        try {
+            FileUtils.forceMkdir(cacheDir);
+            tempEntry = File.createTempFile(key, TEMP_SUFFIX, cacheDir);
+            FileUtils.writeByteArrayToFile(tempEntry, content);
+            final File entry = new File(cacheDir, key);
+            if (!tempEntry.renameTo(entry) && !entry.isFile()) {
+                throw new IOException(String.format("Couldn't store %s.", entry));
+            }
+        } catch (IOException e) {
+            LOGGER.warn(e);
+        } finally {
+            FileUtils.deleteQuietly(tempEntry);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries, until the cache fits into its maximum size again.
+     */
+    public void evict() {
+        final File[] entries = cacheDir.listFiles();
+        if (entries == null) {
+            return;
+        }
+        long size = 0;
+        for (File entry : entries) {
+            size += entry.length();
+        }
+        if (size <= maxSize) {
+            return;
+        }
+        final long[] lastModified = new long[entries.length];
+        final Integer[] order = new Integer[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            lastModified[i] = entries[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                final long difference = lastModified[first] - lastModified[second];
+                return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+            }
+        });
+        for (int i = 0; i < order.length && size > maxSize; i++) {
+            final File entry = entries[order[i]];
+            final long length = entry.length();
+            if (FileUtils.deleteQuietly(entry)) {
+                size -= length;
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{hits=%d, misses=%d}", TAG, hits.get(), misses.get());
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import de.mprengemann.intellij.plugin.androidicons.model.Format;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes exports in memory. True colour PNGs are written by a PNG encoder of its own, so the compression level and
+ * the row filter can be tuned, a fast setting for iterating on assets and a maximal one for release builds. All other
+ * images are written by an {@link ImageWriter}. Deflater, buffers and writers are kept per thread and reused for all
+ * images encoded on it, until the encoder is closed.
+ */
+public class ImageEncoder {
+
+    private static final byte[] PNG_SIGNATURE = new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int IHDR = 0x49484452;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454e44;
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_RGB_ALPHA = 6;
+    private static final int IDAT_SIZE = 32 * 1024;
+
+    private final List<Buffers> allBuffers = new ArrayList<Buffers>();
+    private final ThreadLocal<Buffers> buffers = new ThreadLocal<Buffers>() {
+        @Override
+        protected Buffers initialValue() {
+            final Buffers buffers = new Buffers();
+            synchronized (allBuffers) {
+                allBuffers.add(buffers);
+            }
+            return buffers;
+        }
+    };
+
+    private final int compressionLevel;
+    private final PngFilter filter;
+
+    public ImageEncoder(int compressionLevel, PngFilter filter) {
+        this.compressionLevel = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, compressionLevel));
+        this.filter = filter;
+    }
+
+    public byte[] encode(BufferedImage image, Format format) throws IOException {
+        final Buffers buffers = this.buffers.get();
+        // Only contended, if the encoder is closed while the image is encoded
+        synchronized (buffers) {
+            if (buffers.released) {
+                throw new IOException("The encoder is closed.");
+            }
+            buffers.output.reset();
+            if (format == Format.PNG && isTrueColor(image.getColorModel())) {
+                writePng(image, buffers);
+            } else {
+                write(image, format, buffers);
+            }
+            return buffers.output.toByteArray();
+        }
+    }
+
+    /**
+     * Palette, grayscale and 16 bit images are left to the {@link ImageWriter}, which keeps their compact encoding.
+     */
+    private static boolean isTrueColor(ColorModel colorModel) {
+        if (colorModel instanceof IndexColorModel || colorModel.getColorSpace().getType() != ColorSpace.TYPE_RGB) {
+            return false;
+        }
+        for (int size : colorModel.getComponentSize()) {
+            if (size > 8) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void write(BufferedImage image, Format format, Buffers buffers) throws IOException {
+        final ImageWriter writer = buffers.getWriter(format);
+        final ImageOutputStream stream = new MemoryCacheImageOutputStream(buffers.output);
+        try {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), writer.getDefaultWriteParam());
+        } finally {
+            writer.reset();
+            stream.close();
+        }
+    }
+
+    private void writePng(BufferedImage image, Buffers buffers) throws IOException {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final boolean alpha = image.getColorModel().hasAlpha();
+        final int bytesPerPixel = alpha ? 4 : 3;
+        final int rowLength = width * bytesPerPixel;
+        buffers.allocate(width, rowLength);
+
+        buffers.output.write(PNG_SIGNATURE);
+        final byte[] header = buffers.chunk;
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8;
+        header[9] = (byte) (alpha ? COLOR_TYPE_RGB_ALPHA : COLOR_TYPE_RGB);
+        header[10] = 0;
+        header[11] = 0;
+        header[12] = 0;
+        writeChunk(buffers, IHDR, header, 13);
+
+        final Deflater deflater = buffers.deflater;
+        deflater.reset();
+        deflater.setLevel(compressionLevel);
+        deflater.setStrategy(filter == PngFilter.NONE ? Deflater.DEFAULT_STRATEGY : Deflater.FILTERED);
+        byte[] previous = buffers.previous;
+        byte[] current = buffers.current;
+        Arrays.fill(previous, 0, rowLength, (byte) 0);
+        int chunkLength = 0;
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, buffers.pixels, 0, width);
+            for (int x = 0, i = 0; x < width; x++) {
+                final int pixel = buffers.pixels[x];
+                current[i++] = (byte) (pixel >> 16);
+                current[i++] = (byte) (pixel >> 8);
+                current[i++] = (byte) pixel;
+                if (alpha) {
+                    current[i++] = (byte) (pixel >>> 24);
+                }
+            }
+            final byte[] filtered = filterRow(current, previous, rowLength, bytesPerPixel, buffers);
+            deflater.setInput(filtered, 0, rowLength + 1);
+            while (!deflater.needsInput()) {
+                chunkLength = deflate(buffers, chunkLength);
+            }
+            final byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            chunkLength = deflate(buffers, chunkLength);
+        }
+        if (chunkLength > 0) {
+            writeChunk(buffers, IDAT, buffers.chunk, chunkLength);
+        }
+        writeChunk(buffers, IEND, buffers.chunk, 0);
+    }
+
+    /**
+     * Deflates into the chunk buffer and writes it as IDAT chunk once it's full.
+     *
+     * @return the length of the pending chunk.
+     */
+    private static int deflate(Buffers buffers, int chunkLength) {
+        chunkLength += buffers.deflater.deflate(buffers.chunk, chunkLength, IDAT_SIZE - chunkLength);
+        if (chunkLength == IDAT_SIZE) {
+            writeChunk(buffers, IDAT, buffers.chunk, chunkLength);
+            return 0;
+        }
+        return chunkLength;
+    }
+
+    /**
+     * @return the filter type followed by the filtered row.
+     */
+    private byte[] filterRow(byte[] current, byte[] previous, int rowLength, int bytesPerPixel, Buffers buffers) {
+        if (filter != PngFilter.ADAPTIVE) {
+            filterRow(filter.getType(), current, previous, rowLength, bytesPerPixel, buffers.filtered[0]);
+            return buffers.filtered[0];
+        }
+        int best = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < buffers.filtered.length; type++) {
+            final byte[] filtered = buffers.filtered[type];
+            filterRow(type, current, previous, rowLength, bytesPerPixel, filtered);
+            // Minimum sum of absolute differences, as recommended by the PNG specification
+            long sum = 0;
+            for (int i = 1; i <= rowLength; i++) {
+                sum += Math.abs((int) filtered[i]);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = type;
+            }
+        }
+        return buffers.filtered[best];
+    }
+
+    private static void filterRow(int type,
+                                  byte[] current,
+                                  byte[] previous,
+                                  int rowLength,
+                                  int bytesPerPixel,
+                                  byte[] filtered) {
+        filtered[0] = (byte) type;
+        for (int i = 0; i < rowLength; i++) {
+            final int x = current[i] & 0xff;
+            final int a = i < bytesPerPixel ? 0 : current[i - bytesPerPixel] & 0xff;
+            final int b = previous[i] & 0xff;
+            final int c = i < bytesPerPixel ? 0 : previous[i - bytesPerPixel] & 0xff;
+            final int predictor;
+            switch (type) {
+                case 1:
+                    predictor = a;
+                    break;
+                case 2:
+                    predictor = b;
+                    break;
+                case 3:
+                    predictor = (a + b) >> 1;
+                    break;
+                case 4:
+                    predictor = paeth(a, b, c);
+                    break;
+                default:
+                    predictor = 0;
+            }
+            filtered[i + 1] = (byte) (x - predictor);
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        final int p = a + b - c;
+        final int pa = Math.abs(p - a);
+        final int pb = Math.abs(p - b);
+        final int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private static void writeChunk(Buffers buffers, int type, byte[] data, int length) {
+        final CRC32 crc = buffers.crc;
+        final byte[] word = buffers.word;
+        crc.reset();
+        writeInt(word, 0, length);
+        buffers.output.write(word, 0, 4);
+        writeInt(word, 0, type);
+        buffers.output.write(word, 0, 4);
+        crc.update(word, 0, 4);
+        buffers.output.write(data, 0, length);
+        crc.update(data, 0, length);
+        writeInt(word, 0, (int) crc.getValue());
+        buffers.output.write(word, 0, 4);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Releases the native memory of the deflaters and the writers of all threads. Images, which are encoded right now,
+     * are finished first, all later ones fail.
+     */
+    public void close() {
+        synchronized (allBuffers) {
+            for (Buffers buffers : allBuffers) {
+                synchronized (buffers) {
+                    buffers.release();
+                }
+            }
+            allBuffers.clear();
+        }
+    }
+
+    /**
+     * @return a key for the settings, which affect the encoded bytes.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d|%s", compressionLevel, filter);
+    }
+
+    /**
+     * Encoder state of a single thread.
+     */
+    private static class Buffers {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final Deflater deflater = new Deflater();
+        private final CRC32 crc = new CRC32();
+        private final byte[] chunk = new byte[IDAT_SIZE];
+        private final byte[] word = new byte[4];
+        private final byte[][] filtered = new byte[5][];
+        private int[] pixels = new int[0];
+        private byte[] current = new byte[0];
+        private byte[] previous = new byte[0];
+        private ImageWriter pngWriter;
+        private ImageWriter jpgWriter;
+        private boolean released;
+
+        private void allocate(int width, int rowLength) {
+            if (pixels.length < width) {
+                pixels = new int[width];
+            }
+            if (current.length < rowLength || filtered[0] == null) {
+                current = new byte[rowLength];
+                previous = new byte[rowLength];
+                for (int i = 0; i < filtered.length; i++) {
+                    filtered[i] = new byte[rowLength + 1];
+                }
+            }
+        }
+
+        private ImageWriter getWriter(Format format) throws IOException {
+            if (format == Format.JPG) {
+                if (jpgWriter == null) {
+                    jpgWriter = createWriter(format);
+                }
+                return jpgWriter;
+            }
+            if (pngWriter == null) {
+                pngWriter = createWriter(format);
+            }
+            return pngWriter;
+        }
+
+        private void release() {
+            released = true;
+            deflater.end();
+            if (pngWriter != null) {
+                pngWriter.dispose();
+            }
+            if (jpgWriter != null) {
+                jpgWriter.dispose();
+            }
+        }
+
+        private static ImageWriter createWriter(Format format) throws IOException {
+            final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format.toString());
+            if (!writers.hasNext()) {
+                throw new IOException(String.format("There is no writer for %s.", format));
+            }
+            return writers.next();
+        }
+    }
+}
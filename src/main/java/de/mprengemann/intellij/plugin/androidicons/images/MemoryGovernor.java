@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+/**
+ * Budget for the pixel memory of all running exports. Every stage asks for a permit covering the rasters it's about to
+ * allocate and blocks until enough of the budget is free, which throttles the stages feeding it through their bounded
+ * queues. A request larger than the whole budget is granted once nothing else is held, so huge images are exported
+ * one after another instead of failing.
+ * <p>
+ * Decoded sources and resized targets draw from separate halves of the budget. A resize holds its source while
+ * waiting for target memory, which is only held by targets on their way to the writer, so it is always freed again.
+ * Permits are taken through a {@link Lease} per export, closing it returns whatever a cancelled export still holds.
+ */
+public class MemoryGovernor {
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final long MIN_BUDGET = 16 * 1024 * 1024;
+    private static final MemoryGovernor SOURCES = new MemoryGovernor("sources");
+    private static final MemoryGovernor TARGETS = new MemoryGovernor("targets");
+
+    private final String name;
+    private long budget = Long.MAX_VALUE;
+    private long used;
+    private long peak;
+    private long waits;
+
+    private MemoryGovernor(String name) {
+        this.name = name;
+    }
+
+    public static MemoryGovernor getSources() {
+        return SOURCES;
+    }
+
+    public static MemoryGovernor getTargets() {
+        return TARGETS;
+    }
+
+    /**
+     * Derives the budget from the maximum heap of the IDE.
+     *
+     * @param percentage share of the maximum heap, the budget is disabled if it's not positive.
+     */
+    public static void setHeapPercentage(int percentage) {
+        final long budget = percentage <= 0 ? Long.MAX_VALUE :
+                            Math.max(MIN_BUDGET, Runtime.getRuntime().maxMemory() / 100 * Math.min(percentage, 100));
+        SOURCES.setBudget(budget == Long.MAX_VALUE ? budget : budget / 2);
+        TARGETS.setBudget(budget == Long.MAX_VALUE ? budget : budget - budget / 2);
+    }
+
+    public static long getPixelBytes(long width, long height) {
+        return width * height * BYTES_PER_PIXEL;
+    }
+
+    private synchronized void setBudget(long budget) {
+        this.budget = budget;
+        notifyAll();
+    }
+
+    public Lease lease() {
+        return new Lease();
+    }
+
+    private synchronized long acquire(long bytes) throws InterruptedException {
+        long permit = Math.max(0, Math.min(bytes, budget));
+        if (used + permit > budget) {
+            waits++;
+            while (used + permit > budget) {
+                wait();
+                permit = Math.max(0, Math.min(bytes, budget));
+            }
+        }
+        used += permit;
+        peak = Math.max(peak, used);
+        return permit;
+    }
+
+    private synchronized void release(long permit) {
+        if (permit <= 0) {
+            return;
+        }
+        used = Math.max(0, used - permit);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s{budget=%dMB, used=%dMB, peak=%dMB, waits=%d}",
+                             name,
+                             budget == Long.MAX_VALUE ? -1 : budget >> 20,
+                             used >> 20,
+                             peak >> 20,
+                             waits);
+    }
+
+    public class Lease {
+        private long held;
+        private boolean closed;
+
+        private Lease() {
+        }
+
+        /**
+         * Blocks until the given amount of bytes fits into the budget.
+         *
+         * @return the granted permit, which has to be passed to {@link #release(long)} once the rasters are dropped.
+         */
+        public long acquire(long bytes) throws InterruptedException {
+            final long permit = MemoryGovernor.this.acquire(bytes);
+            synchronized (this) {
+                if (!closed) {
+                    held += permit;
+                    return permit;
+                }
+            }
+            MemoryGovernor.this.release(permit);
+            return 0;
+        }
+
+        public void release(long permit) {
+            final long released;
+            synchronized (this) {
+                released = Math.min(Math.max(0, permit), held);
+                held -= released;
+            }
+            MemoryGovernor.this.release(released);
+        }
+
+        /**
+         * Returns all permits still held, later releases are ignored.
+         */
+        public void close() {
+            final long released;
+            synchronized (this) {
+                closed = true;
+                released = held;
+                held = 0;
+            }
+            MemoryGovernor.this.release(released);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * The one pixel wide border of a nine-patch, stored as runs of stretch and padding markers. It's read once per
+ * source and can then be drawn for any target size.
+ */
+public class NinePatchBorder {
+
+    private static final int MARKER_COLOR = 0xff000000;
+    private static final int LAYOUT_BOUNDS_COLOR = 0xffff0000;
+    private static final double EPSILON = 1e-9;
+
+    private final Side top;
+    private final Side bottom;
+    private final Side left;
+    private final Side right;
+
+    private NinePatchBorder(Side top, Side bottom, Side left, Side right) {
+        this.top = top;
+        this.bottom = bottom;
+        this.left = left;
+        this.right = right;
+    }
+
+    public static NinePatchBorder from(BufferedImage image) throws IOException {
+        final int width = image.getWidth() - 2;
+        final int height = image.getHeight() - 2;
+        if (width < 1 || height < 1) {
+            throw new IOException("Nine-patch is too small.");
+        }
+        final int[] line = new int[Math.max(width, height)];
+        image.getRGB(1, 0, width, 1, line, 0, width);
+        final Side top = Side.from(line, width);
+        image.getRGB(1, height + 1, width, 1, line, 0, width);
+        final Side bottom = Side.from(line, width);
+        image.getRGB(0, 1, 1, height, line, 0, 1);
+        final Side left = Side.from(line, height);
+        image.getRGB(width + 1, 1, 1, height, line, 0, 1);
+        final Side right = Side.from(line, height);
+        return new NinePatchBorder(top, bottom, left, right);
+    }
+
+    /**
+     * Draws the border into the ARGB pixels of a nine-patch with the given content size. The pixels are expected
+     * to be transparent at the border.
+     */
+    public void draw(int[] pixels, int width, int height) {
+        final int stride = width + 2;
+        top.draw(pixels, 1, 1, width);
+        bottom.draw(pixels, (height + 1) * stride + 1, 1, width);
+        left.draw(pixels, stride, stride, height);
+        right.draw(pixels, stride + width + 1, stride, height);
+    }
+
+    private static class Side {
+        private final int length;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] colors;
+
+        private Side(int length, int[] starts, int[] ends, int[] colors) {
+            this.length = length;
+            this.starts = starts;
+            this.ends = ends;
+            this.colors = colors;
+        }
+
+        static Side from(int[] line, int length) throws IOException {
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                if (isMarker(line[i]) && (i == 0 || line[i - 1] != line[i])) {
+                    count++;
+                }
+            }
+            final int[] starts = new int[count];
+            final int[] ends = new int[count];
+            final int[] colors = new int[count];
+            int run = -1;
+            for (int i = 0; i < length; i++) {
+                if (!isMarker(line[i])) {
+                    continue;
+                }
+                if (i == 0 || line[i - 1] != line[i]) {
+                    run++;
+                    starts[run] = i;
+                    colors[run] = line[i];
+                }
+                ends[run] = i;
+            }
+            return new Side(length, starts, ends, colors);
+        }
+
+        private static boolean isMarker(int argb) throws IOException {
+            if ((argb & 0xff000000) == 0) {
+                return false;
+            }
+            if (argb != MARKER_COLOR && argb != LAYOUT_BOUNDS_COLOR) {
+                throw new IOException(String.format("Invalid nine-patch border color #%08x.", argb));
+            }
+            return true;
+        }
+
+        void draw(int[] pixels, int offset, int step, int targetLength) {
+            if (targetLength > length && length > 2) {
+                drawStretched(pixels, offset, step, targetLength);
+                return;
+            }
+            final float ratio = (float) Math.max(targetLength - 1, 1) / (float) Math.max(length - 1, 1);
+            for (int run = 0; run < starts.length; run++) {
+                fill(pixels,
+                     offset,
+                     step,
+                     Math.min(Math.round(starts[run] * ratio), targetLength - 1),
+                     Math.min(Math.round(ends[run] * ratio), targetLength - 1),
+                     colors[run]);
+            }
+        }
+
+        /**
+         * Maps the runs through the natural cubic spline along (0, 0), (1, 1) and (length - 1, targetLength - 1),
+         * which keeps markers at the start of the border in place while stretching the remaining ones.
+         */
+        private void drawStretched(int[] pixels, int offset, int step, int targetLength) {
+            final double last = length - 1;
+            final double targetLast = targetLength - 1;
+            final double h = last - 1d;
+            final double m = 3d * ((targetLast - 1d) / h - 1d) / last;
+            for (int run = 0; run < starts.length; run++) {
+                fill(pixels,
+                     offset,
+                     step,
+                     Math.max(0, (int) (spline(starts[run], last, targetLast, h, m) + EPSILON)),
+                     Math.min((int) (spline(ends[run], last, targetLast, h, m) + EPSILON), targetLength - 1),
+                     colors[run]);
+            }
+        }
+
+        private static double spline(double x, double last, double targetLast, double h, double m) {
+            if (x <= 1d) {
+                return m * x * x * x / 6d + (1d - m / 6d) * x;
+            }
+            final double d = last - x;
+            return m * d * d * d / (6d * h) + (1d - m * h * h / 6d) * d / h + targetLast * (x - 1d) / h;
+        }
+
+        private static void fill(int[] pixels, int offset, int step, int from, int to, int color) {
+            for (int i = from; i <= to; i++) {
+                pixels[offset + i * step] = color;
+            }
+        }
+    }
+}
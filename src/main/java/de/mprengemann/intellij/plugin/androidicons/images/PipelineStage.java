@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stage of the export pipeline. Its workers take the items of a bounded queue, so a stage, which can't keep up,
+ * blocks the stages feeding it instead of piling up their results. The time spent processing is tracked per stage, the
+ * bottleneck of the pipeline is the stage with the highest utilization. A failing item is logged and skipped, but an
+ * {@link Error} stops the worker and marks the stage as failed, as the stages feeding it would block on its queue
+ * otherwise.
+ */
+public abstract class PipelineStage<T> {
+
+    private static final Logger LOGGER = Logger.getInstance(PipelineStage.class);
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final String name;
+    private final int workers;
+    private final BlockingQueue<T> queue;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private volatile boolean finished;
+    private volatile Throwable failure;
+    private ExecutorService executor;
+    private long startNanos;
+    private long endNanos;
+
+    public PipelineStage(String name, int workers, int capacity) {
+        this.name = name;
+        this.workers = Math.max(1, workers);
+        this.queue = new ArrayBlockingQueue<T>(Math.max(1, capacity));
+    }
+
+    public void start(final String threadPrefix) {
+        startNanos = System.nanoTime();
+        executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NotNull Runnable runnable) {
+                final Thread thread = new Thread(runnable, String.format("%s-%s-%d",
+                                                                         threadPrefix,
+                                                                         name,
+                                                                         threadCount.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Hands the item over to this stage, blocking while its queue is full.
+     */
+    public void put(T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    /**
+     * @return false, if the queue is still full after the given timeout.
+     */
+    public boolean offer(T item, long timeoutMs) throws InterruptedException {
+        return queue.offer(item, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * No further items are handed over, the workers quit as soon as the queue is drained.
+     */
+    public void finish() {
+        finished = true;
+    }
+
+    /**
+     * @return true, if all workers quit within the given timeout.
+     */
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        final boolean terminated = executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        if (terminated && endNanos == 0) {
+            endNanos = System.nanoTime();
+        }
+        return terminated;
+    }
+
+    /**
+     * Interrupts all workers, pending items are dropped.
+     */
+    public void cancel() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        queue.clear();
+    }
+
+    protected abstract void process(T item) throws InterruptedException;
+
+    private void work() {
+        try {
+            while (true) {
+                final T item = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    // All items are queued before the stage is finished
+                    if (finished && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                final long start = System.nanoTime();
+                try {
+                    process(item);
+                } catch (RuntimeException e) {
+                    LOGGER.error(e);
+                } catch (Error e) {
+                    failure = e;
+                    return;
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                    processed.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the error, which stopped a worker of this stage, or null if there is none.
+     */
+    @Nullable
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * @return the processed items per second of wall time the stage has been running.
+     */
+    public double getThroughput() {
+        final long elapsedNanos = (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+        return elapsedNanos <= 0 ? 0 : processed.get() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return the share of the stage's running time its workers were busy, between 0 and 1.
+     */
+    public double getUtilization() {
+        final long elapsedNanos = (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+        return elapsedNanos <= 0 ? 0 : Math.min(1, (double) busyNanos.get() / elapsedNanos / workers);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{workers=%d, items=%d, %.1f items/s, utilization=%.0f%%}",
+                             name,
+                             workers,
+                             processed.get(),
+                             getThroughput(),
+                             getUtilization() * 100);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+/**
+ * Row filters of the {@link ImageEncoder}. A fixed filter is cheap, the adaptive one tries all filters per row and
+ * keeps the one which compresses best, which usually results in the smallest files.
+ */
+public enum PngFilter {
+    NONE(0),
+    SUB(1),
+    UP(2),
+    AVERAGE(3),
+    PAETH(4),
+    ADAPTIVE(-1);
+
+    private final int type;
+
+    PngFilter(int type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the filter type written in front of every row or -1, if it's chosen per row.
+     */
+    int getType() {
+        return type;
+    }
+}
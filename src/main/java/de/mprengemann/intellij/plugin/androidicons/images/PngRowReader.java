@@ -0,0 +1,329 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the rows of a non-interlaced PNG one after another as ARGB pixels. The image data is a single deflate stream,
+ * which is inflated exactly once, so only the current and the previous row are held in memory.
+ */
+class PngRowReader {
+
+    private static final long PNG_SIGNATURE = 0x89504e470d0a1a0aL;
+    private static final int IHDR = 0x49484452;
+    private static final int PLTE = 0x504c5445;
+    private static final int TRNS = 0x74524e53;
+    private static final int IDAT = 0x49444154;
+
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private final int width;
+    private final int height;
+    private final int bitDepth;
+    private final int colorType;
+    private final int filterStride;
+    private int[] palette;
+    private int transparentKey = -1;
+    private int[] transparentRgb;
+    private InputStream pixels;
+    private byte[] current;
+    private byte[] previous;
+
+    private PngRowReader(DataInputStream in, int width, int height, int bitDepth, int colorType) {
+        this.in = in;
+        this.width = width;
+        this.height = height;
+        this.bitDepth = bitDepth;
+        this.colorType = colorType;
+        final int bitsPerPixel = bitDepth * getChannels(colorType);
+        this.filterStride = Math.max(1, bitsPerPixel / 8);
+        final int rowLength = (width * bitsPerPixel + 7) / 8;
+        this.current = new byte[rowLength + 1];
+        this.previous = new byte[rowLength + 1];
+    }
+
+    /**
+     * @return a reader positioned at the first row or null, if the file isn't a PNG, which can be read row by row.
+     */
+    @Nullable
+    static PngRowReader open(File file) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        PngRowReader reader = null;
+        try {
+            if (in.readLong() != PNG_SIGNATURE) {
+                return null;
+            }
+            in.readInt();
+            if (in.readInt() != IHDR) {
+                return null;
+            }
+            final int width = in.readInt();
+            final int height = in.readInt();
+            final int bitDepth = in.readUnsignedByte();
+            final int colorType = in.readUnsignedByte();
+            in.readUnsignedByte();
+            in.readUnsignedByte();
+            final int interlace = in.readUnsignedByte();
+            in.readInt();
+            if (interlace != 0 || getChannels(colorType) == 0 || width <= 0 || height <= 0) {
+                return null;
+            }
+            reader = new PngRowReader(in, width, height, bitDepth, colorType);
+            return reader.readHeaderChunks() ? reader : null;
+        } catch (EOFException e) {
+            return null;
+        } finally {
+            if (reader == null || reader.pixels == null) {
+                if (reader != null) {
+                    reader.inflater.end();
+                }
+                IOUtils.closeQuietly(in);
+            }
+        }
+    }
+
+    private static int getChannels(int colorType) {
+        switch (colorType) {
+            case 0:
+            case 3:
+                return 1;
+            case 2:
+                return 3;
+            case 4:
+                return 2;
+            case 6:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Reads palette and transparency up to the first IDAT chunk.
+     */
+    private boolean readHeaderChunks() throws IOException {
+        while (true) {
+            final int length = in.readInt();
+            final int type = in.readInt();
+            if (type == IDAT) {
+                pixels = new InflaterInputStream(new IdatInputStream(length), inflater);
+                return colorType != 3 || palette != null;
+            }
+            final byte[] data = new byte[length];
+            in.readFully(data);
+            in.readInt();
+            if (type == PLTE) {
+                palette = new int[256];
+                for (int i = 0; i + 2 < length && i / 3 < palette.length; i += 3) {
+                    palette[i / 3] = 0xff000000 | (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | data[i + 2] & 0xff;
+                }
+            } else if (type == TRNS) {
+                readTransparency(data);
+            }
+        }
+    }
+
+    private void readTransparency(byte[] data) {
+        if (colorType == 3 && palette != null) {
+            for (int i = 0; i < data.length && i < palette.length; i++) {
+                palette[i] = (data[i] & 0xff) << 24 | (palette[i] & 0xffffff);
+            }
+        } else if (colorType == 0 && data.length >= 2) {
+            transparentKey = (data[0] & 0xff) << 8 | data[1] & 0xff;
+        } else if (colorType == 2 && data.length >= 6) {
+            transparentRgb = new int[3];
+            for (int i = 0; i < 3; i++) {
+                transparentRgb[i] = (data[i * 2] & 0xff) << 8 | data[i * 2 + 1] & 0xff;
+            }
+        }
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Reads the next row into the given ARGB pixels.
+     */
+    void readRow(int[] row) throws IOException {
+        final byte[] swap = previous;
+        previous = current;
+        current = swap;
+        IOUtils.readFully(pixels, current);
+        unfilter();
+        if (bitDepth < 8) {
+            readPackedRow(row);
+        } else {
+            readRow(row, bitDepth / 8);
+        }
+    }
+
+    private void unfilter() throws IOException {
+        final int type = current[0];
+        for (int i = 1; i < current.length; i++) {
+            final int a = i > filterStride ? current[i - filterStride] & 0xff : 0;
+            final int b = previous[i] & 0xff;
+            final int c = i > filterStride ? previous[i - filterStride] & 0xff : 0;
+            final int predictor;
+            switch (type) {
+                case 0:
+                    return;
+                case 1:
+                    predictor = a;
+                    break;
+                case 2:
+                    predictor = b;
+                    break;
+                case 3:
+                    predictor = (a + b) >> 1;
+                    break;
+                case 4:
+                    final int p = a + b - c;
+                    final int pa = Math.abs(p - a);
+                    final int pb = Math.abs(p - b);
+                    final int pc = Math.abs(p - c);
+                    predictor = pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+                    break;
+                default:
+                    throw new IOException(String.format("Unknown filter type %d.", type));
+            }
+            current[i] = (byte) (current[i] + predictor);
+        }
+    }
+
+    private void readPackedRow(int[] row) {
+        final int mask = (1 << bitDepth) - 1;
+        final int scale = 255 / mask;
+        for (int x = 0; x < width; x++) {
+            final int bit = x * bitDepth;
+            final int value = (current[1 + bit / 8] >> (8 - bitDepth - bit % 8)) & mask;
+            if (colorType == 3) {
+                row[x] = palette[value];
+            } else {
+                final int gray = value * scale;
+                row[x] = value == transparentKey ? 0 : 0xff000000 | gray << 16 | gray << 8 | gray;
+            }
+        }
+    }
+
+    /**
+     * Reads 8 or 16 bit samples, of which only the high byte is kept.
+     */
+    private void readRow(int[] row, int bytesPerSample) {
+        for (int x = 0, i = 1; x < width; x++) {
+            switch (colorType) {
+                case 0: {
+                    final int gray = current[i] & 0xff;
+                    row[x] = getSample(i, bytesPerSample) == transparentKey ? 0 :
+                             0xff000000 | gray << 16 | gray << 8 | gray;
+                    i += bytesPerSample;
+                    break;
+                }
+                case 2: {
+                    final int r = current[i] & 0xff;
+                    final int g = current[i + bytesPerSample] & 0xff;
+                    final int b = current[i + 2 * bytesPerSample] & 0xff;
+                    final boolean transparent = transparentRgb != null &&
+                                                getSample(i, bytesPerSample) == transparentRgb[0] &&
+                                                getSample(i + bytesPerSample, bytesPerSample) == transparentRgb[1] &&
+                                                getSample(i + 2 * bytesPerSample, bytesPerSample) == transparentRgb[2];
+                    row[x] = transparent ? 0 : 0xff000000 | r << 16 | g << 8 | b;
+                    i += 3 * bytesPerSample;
+                    break;
+                }
+                case 3:
+                    row[x] = palette[current[i] & 0xff];
+                    i++;
+                    break;
+                case 4: {
+                    final int gray = current[i] & 0xff;
+                    row[x] = (current[i + bytesPerSample] & 0xff) << 24 | gray << 16 | gray << 8 | gray;
+                    i += 2 * bytesPerSample;
+                    break;
+                }
+                default:
+                    row[x] = (current[i + 3 * bytesPerSample] & 0xff) << 24 |
+                             (current[i] & 0xff) << 16 |
+                             (current[i + bytesPerSample] & 0xff) << 8 |
+                             current[i + 2 * bytesPerSample] & 0xff;
+                    i += 4 * bytesPerSample;
+            }
+        }
+    }
+
+    private int getSample(int offset, int bytesPerSample) {
+        return bytesPerSample == 1 ? current[offset] & 0xff : (current[offset] & 0xff) << 8 | current[offset + 1] & 0xff;
+    }
+
+    void close() {
+        inflater.end();
+        IOUtils.closeQuietly(in);
+    }
+
+    /**
+     * The contents of all consecutive IDAT chunks as a single stream.
+     */
+    private class IdatInputStream extends InputStream {
+        private int remaining;
+        private boolean ended;
+
+        private IdatInputStream(int length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] buffer = new byte[1];
+            return read(buffer, 0, 1) < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (remaining == 0) {
+                if (ended) {
+                    return -1;
+                }
+                in.readInt();
+                final int chunkLength = in.readInt();
+                if (in.readInt() != IDAT) {
+                    ended = true;
+                    return -1;
+                }
+                remaining = chunkLength;
+            }
+            final int read = in.read(buffer, offset, Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
@@ -21,66 +21,114 @@ import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.DumbAwareRunnable;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
-import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiDirectory;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiManager;
 import com.intellij.util.ui.UIUtil;
+import de.mprengemann.intellij.plugin.androidicons.IconApplication;
+import de.mprengemann.intellij.plugin.androidicons.controllers.defaults.IDefaultsController;
+import de.mprengemann.intellij.plugin.androidicons.model.Format;
 import de.mprengemann.intellij.plugin.androidicons.model.ImageInformation;
+import de.mprengemann.intellij.plugin.androidicons.model.ImportManifest;
+import de.mprengemann.intellij.plugin.androidicons.resources.ResourceLoader;
 import de.mprengemann.intellij.plugin.androidicons.util.ExportNameUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.HashUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.ImageMetadata;
 import de.mprengemann.intellij.plugin.androidicons.util.ImageUtils;
+import de.mprengemann.intellij.plugin.androidicons.util.MathUtils;
 import de.mprengemann.intellij.plugin.androidicons.util.RunnableUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class RefactoringTask extends Task.Backgroundable {
 
     private static final String TAG = RefactoringTask.class.getSimpleName();
     private static final Logger LOGGER = Logger.getInstance(TAG);
+    private static final long AWAIT_INTERVAL_MS = 100;
+    private static final String NINE_PATCH_DEBUG_DIR = "debug";
+    private static final String EXPORT_CACHE_DIR = "cache";
+    private static final String EXPORT_SPILL_DIR = "spill";
+    private static final long MEGABYTE = 1024 * 1024;
+    // Encoded exports beyond this are spilled to disk until the final write command
+    private static final long EXPORT_BUFFER_MEMORY = 16 * MEGABYTE;
+    // The master and its pyramid levels or nine-patch copies
+    private static final int SOURCE_RASTERS = 2;
+    private static final int TARGET_RASTERS = 2;
     private Project project;
     private List<ImageInformation> imageInformationList = new ArrayList<ImageInformation>();
+    private final AtomicInteger exportedImages = new AtomicInteger();
+    private final int exportThreads;
+    private final int streamingThreshold;
+    private final File ninePatchDebugDir;
+    private final ExportCache exportCache;
+    private final ImageEncoder encoder;
+    private final Map<File, String> sourceHashes = new ConcurrentHashMap<File, String>();
+    private final ExportBuffer exports =
+        new ExportBuffer(new File(ResourceLoader.getExportPath(), EXPORT_SPILL_DIR), EXPORT_BUFFER_MEMORY);
+    private final Map<File, ZipFile> archives = new HashMap<File, ZipFile>();
+    private final MemoryGovernor.Lease sourceMemory = MemoryGovernor.getSources().lease();
+    private final MemoryGovernor.Lease targetMemory = MemoryGovernor.getTargets().lease();
+    private boolean overwriteExisting;
     private int selection;
     private ProgressIndicator progressIndicator;
 
     public RefactoringTask(Project project) {
         super(project, "Importing Images...", true);
         this.project = project;
+        final IconApplication container = ApplicationManager.getApplication().getComponent(IconApplication.class);
+        final IDefaultsController defaultsController = container.getControllerFactory().getDefaultsController();
+        this.exportThreads = Math.max(1, defaultsController.getExportThreads());
+        this.streamingThreshold = defaultsController.getStreamingThreshold();
+        this.ninePatchDebugDir = defaultsController.isNinePatchDebug() ?
+                                 new File(ResourceLoader.getExportPath(), NINE_PATCH_DEBUG_DIR) : null;
+        this.exportCache = new ExportCache(new File(ResourceLoader.getExportPath(), EXPORT_CACHE_DIR),
+                                           defaultsController.getExportCacheSize() * MEGABYTE);
+        MemoryGovernor.setHeapPercentage(defaultsController.getExportMemoryBudget());
+        this.encoder = new ImageEncoder(defaultsController.getCompressionLevel(), defaultsController.getPngFilter());
     }
 
     private void refactor() throws IOException, ProcessCanceledException {
         progressIndicator.checkCanceled();
         progressIndicator.setIndeterminate(false);
-        for (int i = 0; i < imageInformationList.size(); i++) {
-            ImageInformation information = imageInformationList.get(i);
-            progressIndicator.setText2(information.getExportName());
-            progressIndicator.checkCanceled();
-            if (information.isVector()) {
-                copyTempImage(information);
-            } else {
-                exportTempImage(information);
-            }
-            progressIndicator.setFraction((float) (i + 1) / (float) imageInformationList.size());
+        exportedImages.set(0);
+        try {
+            exportPipelined(groupBySource(imageInformationList));
+        } finally {
+            closeArchives();
+            encoder.close();
+        }
+        if (exportCache.isEnabled()) {
+            exportCache.evict();
+            LOGGER.info(exportCache.toString());
         }
 
         progressIndicator.setIndeterminate(true);
         progressIndicator.setText2("Finishing");
         UIUtil.invokeLaterIfNeeded(new DumbAwareRunnable() {
             public void run() {
-                try {
-                    move(project, imageInformationList);
-                    LocalFileSystem.getInstance().refresh(true);
-                } catch (IOException e) {
-                    LOGGER.error(e);
-                }
+                write(project, imageInformationList);
             }
         });
     }
@@ -92,6 +140,21 @@ public class RefactoringTask extends Task.Backgroundable {
         imageInformationList.add(imageInformation);
     }
 
+    /**
+     * Existing files are overwritten without asking, e.g. when re-syncing previously imported drawables.
+     */
+    public void setOverwriteExisting(boolean overwriteExisting) {
+        this.overwriteExisting = overwriteExisting;
+    }
+
+    /**
+     * Whether the generated files are recorded in the {@link ImportManifest} of their resource root, so they can be
+     * re-synced later on. Imports from temporary sources shouldn't be recorded.
+     */
+    protected boolean isRecordedInManifest() {
+        return true;
+    }
+
     protected void onPreExecute() {}
 
     @Override
@@ -107,8 +170,9 @@ public class RefactoringTask extends Task.Backgroundable {
                 try {
                     refactor();
                 } catch (ProcessCanceledException e) {
-                    FileUtils.deleteQuietly(ImageInformation.getTempDir());
+                    exports.clear();
                 } catch (Exception e) {
+                    exports.clear();
                     LOGGER.error(e);
                 }
             }
@@ -117,23 +181,12 @@ public class RefactoringTask extends Task.Backgroundable {
 
     protected void onPostExecute() {}
 
-    private boolean checkFileExist(@Nullable PsiDirectory targetDirectory,
-                                   int[] choice,
-                                   PsiFile file,
-                                   String name,
-                                   String title) {
-        if (targetDirectory == null) {
-            return false;
-        }
-        final PsiFile existing = targetDirectory.findFile(name);
-        if (existing == null || existing.equals(file)) {
-            return false;
-        }
+    private boolean checkFileExist(VirtualFile existing, int[] choice, String title) {
         int selection;
         if (choice == null || choice[0] == -1) {
             final String message = String.format("File '%s' already exists in directory '%s'",
-                                           name,
-                                           targetDirectory.getVirtualFile().getPath());
+                                                 existing.getName(),
+                                                 existing.getParent().getPath());
             String[] options = choice == null ? new String[] {"Overwrite", "Skip"}
                                               : new String[] {"Overwrite", "Skip", "Overwrite for all", "Skip for all"};
             selection = Messages.showDialog(message, title, options, 0, Messages.getQuestionIcon());
@@ -149,122 +202,649 @@ public class RefactoringTask extends Task.Backgroundable {
             selection = choice[0];
         }
 
-        if (selection == 0 && file != existing) {
-            existing.delete();
-        } else {
+        return selection != 0;
+    }
+
+    /**
+     * Writes the encoded exports straight into their target files within a single write command. Each export is
+     * taken out of the {@link ExportBuffer} right before it is written, so at most one spilled export is read back at
+     * a time.
+     */
+    private void write(Project project, final List<ImageInformation> scalingInformationList) {
+        final String description = ExportNameUtils.getExportDescription(scalingInformationList);
+        final List<ImageInformation> written = new ArrayList<ImageInformation>();
+        selection = overwriteExisting ? 0 : -1;
+        RunnableUtils.runWriteCommand(project, new Runnable() {
+            @Override
+            public void run() {
+                for (ImageInformation information : scalingInformationList) {
+                    final byte[] content;
+                    try {
+                        content = exports.take(information);
+                    } catch (IOException e) {
+                        LOGGER.error(e);
+                        continue;
+                    }
+                    if (content != null && writeExport(information, content)) {
+                        written.add(information);
+                    }
+                }
+                exports.clear();
+                if (isRecordedInManifest()) {
+                    updateManifests(written);
+                }
+                onPostExecute();
+            }
+        }, description);
+    }
+
+    private boolean writeExport(ImageInformation information, byte[] content) {
+        final File target = information.getTargetFile();
+        try {
+            final VirtualFile targetDir = getTargetDir(target);
+            VirtualFile targetFile = targetDir.findChild(target.getName());
+            if (targetFile == null) {
+                targetFile = targetDir.createChildData(this, target.getName());
+            } else if (checkFileExist(targetFile, new int[] {selection}, "Copy")) {
+                return false;
+            }
+            targetFile.setBinaryContent(content);
             return true;
+        } catch (IOException e) {
+            LOGGER.error(e);
         }
-
         return false;
     }
 
-    private void copy(Project project,
-                      String description,
-                      List<File> sources,
-                      List<File> targets) throws IOException {
-        final PsiManager instance = PsiManager.getInstance(project);
-        final List<PsiFile> files = new ArrayList<PsiFile>();
-        final List<PsiDirectory> dirs = new ArrayList<PsiDirectory>();
-        final List<String> names = new ArrayList<String>();
-
-        for (File source : sources) {
-            LocalFileSystem.getInstance().findFileByIoFile(source);
-            final VirtualFile vFile = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(source);
-            if (vFile != null) {
-                PsiFile item = instance.findFile(vFile);
-                if (item != null) {
-                    files.add(item);
-                }
-            }
+    @Nullable
+    private File getBaseDir() {
+        return project.getBasePath() == null ? null : new File(project.getBasePath());
+    }
+
+    @NotNull
+    private static VirtualFile getTargetDir(File target) throws IOException {
+        final VirtualFile targetDir =
+            VfsUtil.createDirectoryIfMissing(FileUtil.toSystemIndependentName(target.getParent()));
+        if (targetDir == null) {
+            throw new IOException(String.format("Couldn't create %s.", target.getParent()));
         }
+        return targetDir;
+    }
 
-        for (File target : targets) {
-            VirtualFile targetDir = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(target.getParentFile());
-            if (targetDir == null) {
-                FileUtils.forceMkdir(target.getParentFile());
-                targetDir = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(target.getParentFile());
+    /**
+     * Records the written exports in the manifests of their resource roots. Runs within the write command of the
+     * exports, so the manifests are written through the VFS as well.
+     */
+    private void updateManifests(List<ImageInformation> written) {
+        final Map<String, ImportManifest> manifests = new LinkedHashMap<String, ImportManifest>();
+        for (ImageInformation information : written) {
+            final String sourceHash = sourceHashes.get(information.getImageFile());
+            if (sourceHash == null) {
+                continue;
+            }
+            ImportManifest manifest = manifests.get(information.getExportPath());
+            if (manifest == null) {
+                manifest = ImportManifest.read(new File(information.getExportPath()), getBaseDir());
+                manifests.put(information.getExportPath(), manifest);
             }
-            if (targetDir != null) {
-                final PsiDirectory dir = instance.findDirectory(targetDir);
-                if (dir != null) {
-                    dirs.add(dir);
-                    names.add(target.getName());
+            manifest.put(information, sourceHash, encoder);
+        }
+        for (Map.Entry<String, ImportManifest> manifest : manifests.entrySet()) {
+            try {
+                final File target = ImportManifest.getFile(new File(manifest.getKey()));
+                final VirtualFile targetDir = getTargetDir(target);
+                VirtualFile targetFile = targetDir.findChild(target.getName());
+                if (targetFile == null) {
+                    targetFile = targetDir.createChildData(this, target.getName());
                 }
+                targetFile.setBinaryContent(manifest.getValue().getContent());
+            } catch (IOException e) {
+                LOGGER.error(e);
             }
         }
+    }
 
-        if (files.size() == dirs.size() && !files.isEmpty()) {
-            selection = -1;
-            RunnableUtils.runWriteCommand(project, new Runnable() {
+    /**
+     * Groups all images by their source file, so that every source has to be decoded only once, no matter to how
+     * many resolutions it is exported.
+     */
+    private static Collection<List<ImageInformation>> groupBySource(List<ImageInformation> imageInformationList) {
+        final Map<File, List<ImageInformation>> sourceGroups = new LinkedHashMap<File, List<ImageInformation>>();
+        for (ImageInformation information : imageInformationList) {
+            List<ImageInformation> sourceGroup = sourceGroups.get(information.getImageFile());
+            if (sourceGroup == null) {
+                sourceGroup = new ArrayList<ImageInformation>();
+                sourceGroups.put(information.getImageFile(), sourceGroup);
+            }
+            sourceGroup.add(information);
+        }
+        return sourceGroups.values();
+    }
+
+    /**
+     * Exports the source groups in four stages connected by bounded queues: decode, resize, encode and write. Every
+     * stage has its own workers, so sources are read while others are resized or encoded. As the decode stage blocks
+     * once the resize queue is full, at most {@code 2 * exportThreads} decoded sources plus the ones of the decode
+     * workers are held in memory. On top of that, decode and resize take a permit of the {@link MemoryGovernor} before
+     * allocating any raster, so the pixels of all running exports stay within a share of the heap.
+     */
+    private void exportPipelined(Collection<List<ImageInformation>> sourceGroups)
+        throws IOException, ProcessCanceledException {
+        final PipelineStage<ExportItem> writeStage = new PipelineStage<ExportItem>("write", 1, 4 * exportThreads) {
+            @Override
+            protected void process(ExportItem item) {
+                writeItem(item);
+            }
+        };
+        final PipelineStage<ExportItem> encodeStage =
+            new PipelineStage<ExportItem>("encode", exportThreads, 2 * exportThreads) {
+                @Override
+                protected void process(ExportItem item) throws InterruptedException {
+                    try {
+                        item.content = encodeItem(item);
+                    } finally {
+                        item.image = null;
+                        targetMemory.release(item.permit);
+                    }
+                    writeStage.put(item);
+                }
+            };
+        final PipelineStage<DecodedSource> resizeStage =
+            new PipelineStage<DecodedSource>("resize", exportThreads, exportThreads) {
                 @Override
-                public void run() {
-                    PsiFile file;
-                    PsiDirectory dir;
-                    String name;
-                    for (int i = 0; i < files.size(); i++) {
-                        file = files.get(i);
-                        dir = dirs.get(i);
-                        name = names.get(i);
-                        if (checkFileExist(dir, new int[] {selection}, file, name, "Copy")) {
-                            continue;
+                protected void process(DecodedSource source) throws InterruptedException {
+                    try {
+                        // All streamed targets are resized in a single pass over the source
+                        final List<ExportItem> streamedItems = new ArrayList<ExportItem>();
+                        long streamedBytes = 0;
+                        for (ExportItem item : source.items) {
+                            if (item.streamed) {
+                                streamedItems.add(item);
+                                streamedBytes += getTargetBytes(source, item);
+                            }
                         }
-                        dir.copyFileFrom(name, file);
+                        if (!streamedItems.isEmpty()) {
+                            long permit = targetMemory.acquire(streamedBytes);
+                            for (ExportItem item : streamedItems) {
+                                item.permit = Math.min(getTargetBytes(source, item), permit);
+                                permit -= item.permit;
+                            }
+                            resizeStreamedImages(source.streamedSize, streamedItems);
+                            for (ExportItem item : streamedItems) {
+                                forward(item);
+                            }
+                        }
+                        for (ExportItem item : source.items) {
+                            if (item.streamed) {
+                                continue;
+                            }
+                            item.permit = targetMemory.acquire(getTargetBytes(source, item));
+                            item.image = resizeItem(source, item);
+                            forward(item);
+                        }
+                    } finally {
+                        source.pyramid = null;
+                        sourceMemory.release(source.permit);
+                    }
+                }
+
+                private void forward(ExportItem item) throws InterruptedException {
+                    if (item.image == null) {
+                        targetMemory.release(item.permit);
+                        writeStage.put(item);
+                    } else {
+                        encodeStage.put(item);
                     }
                 }
-            }, description);
+            };
+        final PipelineStage<List<ImageInformation>> decodeStage =
+            new PipelineStage<List<ImageInformation>>("decode", Math.max(1, exportThreads / 2), exportThreads) {
+                @Override
+                protected void process(List<ImageInformation> sourceGroup) throws InterruptedException {
+                    decodeSourceGroup(sourceGroup, resizeStage, writeStage);
+                }
+            };
+
+        final List<PipelineStage<?>> stages = new ArrayList<PipelineStage<?>>();
+        stages.add(decodeStage);
+        stages.add(resizeStage);
+        stages.add(encodeStage);
+        stages.add(writeStage);
+        try {
+            for (PipelineStage<?> stage : stages) {
+                stage.start(TAG);
+            }
+            for (List<ImageInformation> sourceGroup : sourceGroups) {
+                while (!decodeStage.offer(sourceGroup, AWAIT_INTERVAL_MS)) {
+                    checkStages(stages);
+                }
+            }
+            // A stage is drained completely before the next one is finished
+            for (PipelineStage<?> stage : stages) {
+                stage.finish();
+                while (!stage.awaitTermination(AWAIT_INTERVAL_MS)) {
+                    checkStages(stages);
+                }
+                checkStages(stages);
+            }
+        } catch (InterruptedException e) {
+            throw new ProcessCanceledException(e);
+        } finally {
+            for (PipelineStage<?> stage : stages) {
+                stage.cancel();
+            }
+            sourceMemory.close();
+            targetMemory.close();
+            LOGGER.info(String.format("Export pipeline %s, %s, %s",
+                                      stages,
+                                      MemoryGovernor.getSources(),
+                                      MemoryGovernor.getTargets()));
+        }
+    }
+
+    /**
+     * Fails the export, if a stage died, as the stages feeding it would wait for it forever.
+     */
+    private void checkStages(List<PipelineStage<?>> stages) throws IOException, ProcessCanceledException {
+        progressIndicator.checkCanceled();
+        for (PipelineStage<?> stage : stages) {
+            final Throwable failure = stage.getFailure();
+            if (failure != null) {
+                throw new IOException(String.format("The %s stage failed.", stage.getName()), failure);
+            }
+        }
+    }
+
+    /**
+     * Reads and decodes the source of the given group once. Vectors and cached exports are handed over to the write
+     * stage right away, all other targets are resized from the decoded source. Cascaded targets depend on the levels
+     * the larger targets left in the {@link ResizePyramid}, so they are cached along with the whole cascade of their
+     * group and only taken from the cache, if all of them are cached.
+     */
+    private void decodeSourceGroup(List<ImageInformation> sourceGroup,
+                                   PipelineStage<DecodedSource> resizeStage,
+                                   PipelineStage<ExportItem> writeStage) throws InterruptedException {
+        // Archived sources are read once into memory, they can't be streamed
+        final ImageInformation sourceInformation = sourceGroup.get(0);
+        final byte[] archivedSource = sourceInformation.getArchiveEntry() == null ?
+                                      null : readArchivedSource(sourceInformation);
+        if (sourceInformation.getArchiveEntry() != null && archivedSource == null) {
+            for (ImageInformation information : sourceGroup) {
+                writeStage.put(new ExportItem(information, null, false));
+            }
             return;
         }
+        final String sourceHash = hashSource(sourceInformation, archivedSource);
+        final DecodedSource source = new DecodedSource();
+        source.streamedSize = archivedSource == null ? getStreamedSize(sourceGroup) : null;
+        final List<ImageInformation> sortedGroup = sortByFactor(sourceGroup);
+        final String cascade = getCascade(sortedGroup);
+        final List<ExportItem> items = new ArrayList<ExportItem>();
+        boolean cascadeCached = true;
+        for (ImageInformation information : sortedGroup) {
+            if (information.isVector()) {
+                final ExportItem item = new ExportItem(information, null, false);
+                item.content = archivedSource != null ? archivedSource : readVector(information);
+                writeStage.put(item);
+                continue;
+            }
 
-        throw new FileNotFoundException(sources.toString());
+            final boolean streamed = source.streamedSize != null && isStreamable(information);
+            final boolean cascaded = isCascaded(information);
+            final String cacheKey = sourceHash == null || !exportCache.isEnabled() ?
+                                    null : exportCache.getKey(sourceHash,
+                                                              information,
+                                                              streamed,
+                                                              encoder,
+                                                              cascaded ? cascade : null);
+            final ExportItem item = new ExportItem(information, cacheKey, streamed);
+            item.content = cacheKey == null ? null : exportCache.get(cacheKey);
+            cascadeCached &= !cascaded || item.content != null;
+            items.add(item);
+        }
+        boolean decode = false;
+        boolean ninePatch = false;
+        for (ExportItem item : items) {
+            final ImageInformation information = item.information;
+            if (item.content != null && (cascadeCached || !isCascaded(information))) {
+                writeStage.put(item);
+                continue;
+            }
+            item.content = null;
+            decode |= !item.streamed;
+            ninePatch |= information.isNinePatch();
+            source.items.add(item);
+        }
+        if (source.items.isEmpty()) {
+            return;
+        }
+        if (decode) {
+            final Dimension sourceSize = getSourceSize(sourceInformation, archivedSource);
+            source.permit = sourceMemory.acquire(sourceSize == null ?
+                                                 0 : SOURCE_RASTERS * MemoryGovernor.getPixelBytes(sourceSize.width,
+                                                                                                   sourceSize.height));
+            final BufferedImage image = decodeSource(sourceInformation, archivedSource);
+            source.pyramid = image == null ? null : new ResizePyramid(image);
+            if (image != null && ninePatch) {
+                source.ninePatchBorder = readNinePatchBorder(image);
+            }
+        }
+        try {
+            resizeStage.put(source);
+        } catch (InterruptedException e) {
+            sourceMemory.release(source.permit);
+            throw e;
+        }
     }
 
-    private void move(Project project, List<ImageInformation> scalingInformationList) throws IOException {
-        List<File> tempFiles = new ArrayList<File>();
-        List<File> targets = new ArrayList<File>();
+    /**
+     * @return the size of the source read from its header or null, if it can't be read.
+     */
+    @Nullable
+    private static Dimension getSourceSize(ImageInformation information, @Nullable byte[] archivedSource) {
+        try {
+            return archivedSource != null ?
+                   ImageMetadata.read(archivedSource, information.getArchiveEntry()).getSize() :
+                   ImageUtils.getImageSize(information.getImageFile());
+        } catch (Exception e) {
+            LOGGER.warn(e);
+        }
+        return null;
+    }
 
-        for (ImageInformation information : scalingInformationList) {
-            tempFiles.add(information.getTempImage());
-            targets.add(information.getTargetFile());
+    /**
+     * Covers the resized image and the intermediate of the resize, JPGs need another copy without alpha for encoding.
+     */
+    private static long getTargetBytes(DecodedSource source, ExportItem item) {
+        final Dimension sourceSize;
+        if (item.streamed) {
+            sourceSize = source.streamedSize;
+        } else if (source.pyramid != null) {
+            sourceSize = new Dimension(source.pyramid.getMaster().getWidth(), source.pyramid.getMaster().getHeight());
+        } else {
+            return 0;
         }
+        final Dimension size = ImageUtils.getScaledSize(sourceSize, item.information);
+        final int rasters = item.information.getFormat() == Format.JPG ? TARGET_RASTERS + 1 : TARGET_RASTERS;
+        return rasters * MemoryGovernor.getPixelBytes(size.width, size.height);
+    }
 
-        final String description = ExportNameUtils.getExportDescription(scalingInformationList);
-        copy(project, description, tempFiles, targets);
-        RunnableUtils.runWriteCommand(project, new Runnable() {
+    @Nullable
+    private BufferedImage resizeItem(DecodedSource source, ExportItem item) {
+        if (source.pyramid == null) {
+            return null;
+        }
+        return resizeImage(source.pyramid, source.ninePatchBorder, item.information);
+    }
+
+    @Nullable
+    private byte[] encodeItem(ExportItem item) {
+        try {
+            return ImageUtils.encodeImage(item.image, item.information, encoder);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
+
+    private void writeItem(ExportItem item) {
+        progressIndicator.setText2(item.information.getExportName());
+        putExport(item.information, item.content);
+        if (item.cacheKey != null && item.content != null) {
+            exportCache.store(item.cacheKey, item.content);
+        }
+        updateProgress();
+    }
+
+    private void putExport(ImageInformation information, @Nullable byte[] content) {
+        if (content != null) {
+            exports.put(information, content);
+        }
+    }
+
+    private void updateProgress() {
+        final int exported = exportedImages.incrementAndGet();
+        progressIndicator.setFraction((float) exported / (float) imageInformationList.size());
+    }
+
+    @Nullable
+    private String hashSource(ImageInformation information, @Nullable byte[] archivedSource) {
+        try {
+            final String sourceHash = archivedSource != null ?
+                                      HashUtils.sha1(archivedSource) : HashUtils.sha1(information.getImageFile());
+            sourceHashes.put(information.getImageFile(), sourceHash);
+            return sourceHash;
+        } catch (IOException e) {
+            LOGGER.warn(e);
+        }
+        return null;
+    }
+
+    /**
+     * Orders the targets of a source from the largest to the smallest one, so a cascading resize can reuse the
+     * already resized larger images.
+     */
+    private static List<ImageInformation> sortByFactor(List<ImageInformation> sourceGroup) {
+        final List<ImageInformation> sortedGroup = new ArrayList<ImageInformation>(sourceGroup);
+        Collections.sort(sortedGroup, new Comparator<ImageInformation>() {
             @Override
-            public void run() {
-                FileUtils.deleteQuietly(ImageInformation.getTempDir());
-                onPostExecute();
+            public int compare(ImageInformation first, ImageInformation second) {
+                return Float.compare(second.getFactor(), first.getFactor());
             }
-        }, description);
+        });
+        return sortedGroup;
+    }
+
+    private BufferedImage decodeSource(ImageInformation information, @Nullable byte[] archivedSource) {
+        try {
+            final BufferedImage image = archivedSource != null ?
+                                        ImageIO.read(new ByteArrayInputStream(archivedSource)) :
+                                        ImageIO.read(information.getImageFile());
+            if (image == null) {
+                throw new IOException(String.format("Couldn't decode %s.", information.getImageFile()));
+            }
+            return ImageUtils.normalizeGray(image);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the size of the source, if it exceeds the streaming threshold and the source shouldn't be decoded
+     * completely. Otherwise null is returned.
+     */
+    @Nullable
+    private Dimension getStreamedSize(List<ImageInformation> sourceGroup) {
+        if (streamingThreshold <= 0) {
+            return null;
+        }
+        for (ImageInformation information : sourceGroup) {
+            if (information.isVector() || !isStreamable(information)) {
+                continue;
+            }
+            try {
+                final Dimension size = ImageUtils.getImageSize(information.getImageFile());
+                return (long) size.width * (long) size.height > streamingThreshold ? size : null;
+            } catch (Exception e) {
+                LOGGER.error(e);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Only the separable filters can be applied row by row, all other algorithms need the decoded source.
+     */
+    private static boolean isStreamable(ImageInformation information) {
+        return information.getAlgorithm() == ResizeAlgorithm.SEPARABLE &&
+               !information.isNinePatch() &&
+               !MathUtils.floatEquals(information.getFactor(), 1f);
+    }
+
+    /**
+     * @return whether the target is resized from the {@link ResizePyramid} and depends on the larger targets
+     */
+    private static boolean isCascaded(ImageInformation information) {
+        return !information.isNinePatch() &&
+               information.getAlgorithm() == ResizeAlgorithm.CASCADE &&
+               !MathUtils.floatEquals(information.getFactor(), 1f);
+    }
+
+    /**
+     * @return the factors and methods of all cascaded targets of the sorted group in the order they are resized
+     */
+    private static String getCascade(List<ImageInformation> sortedGroup) {
+        final StringBuilder cascade = new StringBuilder();
+        for (ImageInformation information : sortedGroup) {
+            if (information.isVector() || !isCascaded(information)) {
+                continue;
+            }
+            cascade.append(Float.toString(information.getFactor()))
+                   .append(':')
+                   .append(information.getMethod())
+                   .append(';');
+        }
+        return cascade.toString();
+    }
+
+    /**
+     * Resizes the source of the given items to all their sizes, reading it only once.
+     */
+    private static void resizeStreamedImages(Dimension sourceSize, List<ExportItem> items) {
+        final Dimension[] sizes = new Dimension[items.size()];
+        final ResampleFilter[] filters = new ResampleFilter[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            final ImageInformation information = items.get(i).information;
+            sizes[i] = ImageUtils.getScaledSize(sourceSize, information);
+            filters[i] = (ResampleFilter) information.getMethod();
+        }
+        try {
+            final BufferedImage[] images = StreamingResampler.resize(items.get(0).information.getImageFile(),
+                                                                     sizes,
+                                                                     filters);
+            for (int i = 0; i < images.length; i++) {
+                items.get(i).image = images[i];
+            }
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
     }
 
-    private void exportTempImage(final ImageInformation information) {
+    @Nullable
+    private static NinePatchBorder readNinePatchBorder(BufferedImage image) {
+        try {
+            return NinePatchBorder.from(image);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
+
+    @Nullable
+    private BufferedImage resizeImage(final ResizePyramid source,
+                                      @Nullable final NinePatchBorder ninePatchBorder,
+                                      final ImageInformation information) {
         try {
-            BufferedImage resizeImageJpg;
             if (information.isNinePatch()) {
-                resizeImageJpg = ImageUtils.resizeNinePatchImage(information);
-            } else {
-                resizeImageJpg = ImageUtils.resizeNormalImage(information);
+                if (ninePatchBorder == null) {
+                    return null;
+                }
+                return ImageUtils.resizeNinePatchImage(source.getMaster(),
+                                                       ninePatchBorder,
+                                                       information,
+                                                       ninePatchDebugDir);
+            } else if (isCascaded(information)) {
+                final Dimension size = ImageUtils.getScaledSize(source.getMaster(), information);
+                return source.resize(size.width, size.height, (CascadeMethod) information.getMethod());
             }
-            ImageUtils.saveImageTempFile(resizeImageJpg, information);
+            return ImageUtils.resizeNormalImage(source.getMaster(), information);
         } catch (Exception e) {
             LOGGER.error(e);
         }
+        return null;
     }
 
-    private void copyTempImage(ImageInformation information) {
+    /**
+     * A decoded source together with the targets, which still have to be resized from it.
+     */
+    private static class DecodedSource {
+        private final List<ExportItem> items = new ArrayList<ExportItem>();
+        private ResizePyramid pyramid;
+        private NinePatchBorder ninePatchBorder;
+        private Dimension streamedSize;
+        private long permit;
+    }
+
+    /**
+     * A single target passing the pipeline, the resized image is released as soon as it's encoded.
+     */
+    private static class ExportItem {
+        private final ImageInformation information;
+        private final String cacheKey;
+        private final boolean streamed;
+        private BufferedImage image;
+        private byte[] content;
+        private long permit;
+
+        private ExportItem(ImageInformation information, @Nullable String cacheKey, boolean streamed) {
+            this.information = information;
+            this.cacheKey = cacheKey;
+            this.streamed = streamed;
+        }
+    }
+
+    @Nullable
+    private byte[] readArchivedSource(ImageInformation information) {
+        InputStream inputStream = null;
         try {
-            File exportFile = information.getTempImage();
-            if (exportFile != null) {
-                if (!exportFile.getParentFile().exists()) {
-                    FileUtils.forceMkdir(exportFile.getParentFile());
+            final ZipFile archive = getArchive(information.getArchiveFile());
+            final ZipEntry entry = archive.getEntry(information.getArchiveEntry());
+            if (entry == null) {
+                throw new IOException(String.format("Couldn't find %s.", information.getImageFile()));
+            }
+            inputStream = archive.getInputStream(entry);
+            return IOUtils.toByteArray(inputStream);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+        return null;
+    }
+
+    private ZipFile getArchive(File archiveFile) throws IOException {
+        synchronized (archives) {
+            ZipFile archive = archives.get(archiveFile);
+            if (archive == null) {
+                archive = new ZipFile(archiveFile);
+                archives.put(archiveFile, archive);
+            }
+            return archive;
+        }
+    }
+
+    private void closeArchives() {
+        synchronized (archives) {
+            for (ZipFile archive : archives.values()) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    LOGGER.warn(e);
                 }
-                FileUtils.copyFile(information.getImageFile(), information.getTempImage());
-            } else {
-                throw new IOException("Couldn't find .idea path.");
             }
+            archives.clear();
+        }
+    }
+
+    @Nullable
+    private static byte[] readVector(ImageInformation information) {
+        try {
+            return FileUtils.readFileToByteArray(information.getImageFile());
         } catch (Exception e) {
             LOGGER.error(e);
         }
+        return null;
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+/**
+ * Reconstruction filters of the {@link SeparableResampler}.
+ */
+public enum ResampleFilter {
+    LANCZOS3("Lanczos3", 3d) {
+        @Override
+        double weight(double x) {
+            x = Math.abs(x);
+            if (x < 1e-6) {
+                return 1d;
+            }
+            if (x >= 3d) {
+                return 0d;
+            }
+            final double piX = Math.PI * x;
+            return 3d * Math.sin(piX) * Math.sin(piX / 3d) / (piX * piX);
+        }
+    },
+    MITCHELL("Mitchell", 2d) {
+        private static final double B = 1d / 3d;
+        private static final double C = 1d / 3d;
+
+        @Override
+        double weight(double x) {
+            x = Math.abs(x);
+            final double x2 = x * x;
+            final double x3 = x2 * x;
+            if (x < 1d) {
+                return ((12d - 9d * B - 6d * C) * x3 + (-18d + 12d * B + 6d * C) * x2 + (6d - 2d * B)) / 6d;
+            } else if (x < 2d) {
+                return ((-B - 6d * C) * x3 + (6d * B + 30d * C) * x2 + (-12d * B - 48d * C) * x
+                        + (8d * B + 24d * C)) / 6d;
+            }
+            return 0d;
+        }
+    },
+    BOX("Box", 0.5d) {
+        @Override
+        double weight(double x) {
+            return x >= -0.5d && x < 0.5d ? 1d : 0d;
+        }
+    };
+
+    private final String name;
+    private final double support;
+
+    ResampleFilter(String name, double support) {
+        this.name = name;
+        this.support = support;
+    }
+
+    abstract double weight(double x);
+
+    double getSupport() {
+        return support;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static ResampleFilter from(String filter) {
+        for (ResampleFilter resampleFilter : values()) {
+            if (resampleFilter.name.equals(filter)) {
+                return resampleFilter;
+            }
+        }
+        throw new IllegalArgumentException("Method doesn't exist: " + filter);
+    }
+}
@@ -15,12 +15,15 @@ package de.mprengemann.intellij.plugin.androidicons.images;
 
 import org.imgscalr.Scalr;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public enum ResizeAlgorithm {
     SCALR("Scalr"),
-    THUMBNAILATOR("Thumbnailator");
+    THUMBNAILATOR("Thumbnailator"),
+    CASCADE("Cascade"),
+    SEPARABLE("Separable");
 
     private final String name;
 
@@ -41,6 +44,18 @@ public enum ResizeAlgorithm {
             case THUMBNAILATOR:
                 methods = Arrays.asList("Default");
                 break;
+            case CASCADE:
+                methods = new ArrayList<String>();
+                for (CascadeMethod cascadeMethod : CascadeMethod.values()) {
+                    methods.add(cascadeMethod.toString());
+                }
+                break;
+            case SEPARABLE:
+                methods = new ArrayList<String>();
+                for (ResampleFilter resampleFilter : ResampleFilter.values()) {
+                    methods.add(resampleFilter.toString());
+                }
+                break;
             default:
                 throw new IllegalArgumentException();
         }
@@ -62,6 +77,10 @@ public enum ResizeAlgorithm {
                     return Scalr.Method.ULTRA_QUALITY;
                 }
                 break;
+            case CASCADE:
+                return CascadeMethod.from(method);
+            case SEPARABLE:
+                return ResampleFilter.from(method);
             case THUMBNAILATOR:
             default:
                 return null;
@@ -87,6 +106,9 @@ public enum ResizeAlgorithm {
                     default:
                         return null;
                 }
+            case CASCADE:
+            case SEPARABLE:
+                return method.toString();
             case THUMBNAILATOR:
             default:
                 return "Default";
@@ -103,6 +125,10 @@ public enum ResizeAlgorithm {
             return SCALR;
         } else if (THUMBNAILATOR.name.equals(algorithm)) {
             return THUMBNAILATOR;
+        } else if (CASCADE.name.equals(algorithm)) {
+            return CASCADE;
+        } else if (SEPARABLE.name.equals(algorithm)) {
+            return SEPARABLE;
         }
         throw new IllegalArgumentException("Algorithm doesn't exist: " + algorithm);
     }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import org.imgscalr.Scalr;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Downscale pyramid of a single master image. Every resize starts from the smallest level which is still at least as
+ * large as the requested size and within the generation limit of the method, so requesting the sizes in descending
+ * order resizes xxhdpi from xxxhdpi, xhdpi from xxhdpi and so on.
+ */
+public class ResizePyramid {
+
+    private final List<Level> levels = new ArrayList<Level>();
+
+    public ResizePyramid(BufferedImage master) {
+        levels.add(new Level(master, 0));
+    }
+
+    public BufferedImage getMaster() {
+        return levels.get(0).image;
+    }
+
+    public synchronized BufferedImage resize(int width, int height, CascadeMethod method) {
+        Level source = levels.get(0);
+        for (Level level : levels) {
+            if (level.generation >= method.getMaxGenerations() ||
+                level.image.getWidth() < width ||
+                level.image.getHeight() < height) {
+                continue;
+            }
+            if (level.image.getWidth() == width && level.image.getHeight() == height) {
+                return level.image;
+            }
+            if (level.image.getWidth() < source.image.getWidth()) {
+                source = level;
+            }
+        }
+        final BufferedImage resized = Scalr.resize(source.image,
+                                                   method.getScalrMethod(),
+                                                   width,
+                                                   height,
+                                                   Scalr.OP_ANTIALIAS);
+        levels.add(new Level(resized, source.generation + 1));
+        return resized;
+    }
+
+    private static class Level {
+        private final BufferedImage image;
+        private final int generation;
+
+        private Level(BufferedImage image, int generation) {
+            this.image = image;
+            this.generation = generation;
+        }
+    }
+}
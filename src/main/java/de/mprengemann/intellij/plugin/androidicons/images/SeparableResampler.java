@@ -0,0 +1,329 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Separable resampler working directly on {@code int[]} ARGB rasters. The image is filtered horizontally into a
+ * premultiplied intermediate raster and then vertically into the result. Weight tables are computed once per
+ * source size, target size and filter, intermediate rasters are reused per thread.
+ */
+public class SeparableResampler {
+
+    static final int WEIGHT_BITS = 14;
+    private static final int WEIGHT_ONE = 1 << WEIGHT_BITS;
+    private static final int WEIGHT_ROUNDING = 1 << (WEIGHT_BITS - 1);
+    private static final int MAX_WEIGHT_TABLES = 64;
+
+    private static final Map<WeightKey, WeightTable> WEIGHT_TABLES =
+        new LinkedHashMap<WeightKey, WeightTable>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WeightKey, WeightTable> eldest) {
+                return size() > MAX_WEIGHT_TABLES;
+            }
+        };
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private SeparableResampler() {
+    }
+
+    public static BufferedImage resize(BufferedImage source, int width, int height, ResampleFilter filter) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        final int sourceWidth = source.getWidth();
+        final int sourceHeight = source.getHeight();
+        final WeightTable horizontal = getWeights(sourceWidth, width, filter);
+        final WeightTable vertical = getWeights(sourceHeight, height, filter);
+        final Scratch scratch = SCRATCH.get();
+
+        final int[] pixels = getPixels(source, scratch);
+        final int[] intermediate = scratch.intermediate(width * sourceHeight);
+        final int[] row = scratch.row(sourceWidth);
+        for (int y = 0; y < sourceHeight; y++) {
+            premultiply(pixels, y * sourceWidth, row, sourceWidth);
+            resampleRow(row, intermediate, y * width, horizontal);
+        }
+
+        final BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] target = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        final int[] accumulator = scratch.accumulator(width * 4);
+        for (int y = 0; y < height; y++) {
+            clear(accumulator, width * 4);
+            final int start = vertical.starts[y];
+            final int offset = y * vertical.stride;
+            for (int tap = 0; tap < vertical.counts[y]; tap++) {
+                accumulate(intermediate, (start + tap) * width, vertical.weights[offset + tap], accumulator, width);
+            }
+            unpremultiply(accumulator, target, y * width, width);
+        }
+        return result;
+    }
+
+    static WeightTable getWeights(int sourceSize, int targetSize, ResampleFilter filter) {
+        final WeightKey key = new WeightKey(sourceSize, targetSize, filter);
+        synchronized (WEIGHT_TABLES) {
+            WeightTable table = WEIGHT_TABLES.get(key);
+            if (table == null) {
+                table = new WeightTable(sourceSize, targetSize, filter);
+                WEIGHT_TABLES.put(key, table);
+            }
+            return table;
+        }
+    }
+
+    private static int[] getPixels(BufferedImage source, Scratch scratch) {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        if (source.getType() == BufferedImage.TYPE_INT_ARGB &&
+            source.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel &&
+            ((SinglePixelPackedSampleModel) source.getRaster().getSampleModel()).getScanlineStride() == width &&
+            source.getRaster().getSampleModelTranslateX() == 0 &&
+            source.getRaster().getSampleModelTranslateY() == 0) {
+            final DataBufferInt dataBuffer = (DataBufferInt) source.getRaster().getDataBuffer();
+            if (dataBuffer.getNumBanks() == 1 && dataBuffer.getOffset() == 0) {
+                return dataBuffer.getData();
+            }
+        }
+        final int[] pixels = scratch.source(width * height);
+        source.getRGB(0, 0, width, height, pixels, 0, width);
+        return pixels;
+    }
+
+    static void premultiply(int[] source, int sourceOffset, int[] target, int length) {
+        for (int i = 0; i < length; i++) {
+            final int argb = source[sourceOffset + i];
+            final int a = argb >>> 24;
+            if (a == 0xff) {
+                target[i] = argb;
+            } else if (a == 0) {
+                target[i] = 0;
+            } else {
+                final int r = ((argb >> 16) & 0xff) * a + 127;
+                final int g = ((argb >> 8) & 0xff) * a + 127;
+                final int b = (argb & 0xff) * a + 127;
+                target[i] = (a << 24) | ((r + (r >> 8)) >> 8 << 16) | ((g + (g >> 8)) >> 8 << 8) | ((b + (b >> 8)) >> 8);
+            }
+        }
+    }
+
+    /**
+     * Filters a single premultiplied row into {@code target}, starting at {@code targetOffset}.
+     */
+    static void resampleRow(int[] row, int[] target, int targetOffset, WeightTable table) {
+        for (int x = 0; x < table.targetSize; x++) {
+            int a = 0;
+            int r = 0;
+            int g = 0;
+            int b = 0;
+            final int start = table.starts[x];
+            final int offset = x * table.stride;
+            for (int tap = 0; tap < table.counts[x]; tap++) {
+                final int weight = table.weights[offset + tap];
+                final int argb = row[start + tap];
+                a += (argb >>> 24) * weight;
+                r += ((argb >> 16) & 0xff) * weight;
+                g += ((argb >> 8) & 0xff) * weight;
+                b += (argb & 0xff) * weight;
+            }
+            target[targetOffset + x] = pack(a, r, g, b);
+        }
+    }
+
+    static void accumulate(int[] source, int sourceOffset, int weight, int[] accumulator, int width) {
+        for (int x = 0, i = 0; x < width; x++, i += 4) {
+            final int argb = source[sourceOffset + x];
+            accumulator[i] += (argb >>> 24) * weight;
+            accumulator[i + 1] += ((argb >> 16) & 0xff) * weight;
+            accumulator[i + 2] += ((argb >> 8) & 0xff) * weight;
+            accumulator[i + 3] += (argb & 0xff) * weight;
+        }
+    }
+
+    static void clear(int[] accumulator, int length) {
+        for (int i = 0; i < length; i++) {
+            accumulator[i] = 0;
+        }
+    }
+
+    static void unpremultiply(int[] accumulator, int[] target, int targetOffset, int width) {
+        for (int x = 0, i = 0; x < width; x++, i += 4) {
+            final int premultiplied = pack(accumulator[i], accumulator[i + 1], accumulator[i + 2], accumulator[i + 3]);
+            final int a = premultiplied >>> 24;
+            if (a == 0xff || a == 0) {
+                target[targetOffset + x] = a == 0 ? 0 : premultiplied;
+                continue;
+            }
+            final int half = a >> 1;
+            final int r = (((premultiplied >> 16) & 0xff) * 0xff + half) / a;
+            final int g = (((premultiplied >> 8) & 0xff) * 0xff + half) / a;
+            final int b = ((premultiplied & 0xff) * 0xff + half) / a;
+            target[targetOffset + x] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+    }
+
+    /**
+     * Packs fixed point channel sums into a premultiplied ARGB pixel. Negative lobes of the filters may push the
+     * colour channels out of range, so they are clamped to [0, alpha].
+     */
+    private static int pack(int a, int r, int g, int b) {
+        a = clamp((a + WEIGHT_ROUNDING) >> WEIGHT_BITS, 0xff);
+        r = Math.min(clamp((r + WEIGHT_ROUNDING) >> WEIGHT_BITS, 0xff), a);
+        g = Math.min(clamp((g + WEIGHT_ROUNDING) >> WEIGHT_BITS, 0xff), a);
+        b = Math.min(clamp((b + WEIGHT_ROUNDING) >> WEIGHT_BITS, 0xff), a);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : value > max ? max : value;
+    }
+
+    /**
+     * Contributing source indices and fixed point weights for every target index of one dimension.
+     */
+    static class WeightTable {
+        final int targetSize;
+        final int stride;
+        final int[] starts;
+        final int[] counts;
+        final int[] weights;
+
+        WeightTable(int sourceSize, int targetSize, ResampleFilter filter) {
+            this.targetSize = targetSize;
+            final double scale = (double) targetSize / (double) sourceSize;
+            final double filterScale = Math.max(1d, 1d / scale);
+            final double support = filter.getSupport() * filterScale;
+            this.stride = Math.min(sourceSize, (int) Math.ceil(support * 2d) + 1);
+            this.starts = new int[targetSize];
+            this.counts = new int[targetSize];
+            this.weights = new int[targetSize * stride];
+
+            final double[] rawWeights = new double[stride];
+            for (int i = 0; i < targetSize; i++) {
+                final double center = (i + 0.5d) / scale;
+                int start = Math.max(0, (int) Math.floor(center - support));
+                int end = Math.min(sourceSize, (int) Math.ceil(center + support));
+                if (end - start > stride) {
+                    end = start + stride;
+                }
+                double total = 0d;
+                for (int j = start; j < end; j++) {
+                    rawWeights[j - start] = filter.weight((j + 0.5d - center) / filterScale);
+                    total += rawWeights[j - start];
+                }
+                if (total == 0d) {
+                    start = Math.min(sourceSize - 1, Math.max(0, (int) center));
+                    end = start + 1;
+                    rawWeights[0] = 1d;
+                    total = 1d;
+                }
+                starts[i] = start;
+                counts[i] = end - start;
+
+                final int offset = i * stride;
+                int sum = 0;
+                int largest = offset;
+                for (int j = 0; j < counts[i]; j++) {
+                    final int weight = (int) Math.round(rawWeights[j] / total * WEIGHT_ONE);
+                    weights[offset + j] = weight;
+                    sum += weight;
+                    if (weight > weights[largest]) {
+                        largest = offset + j;
+                    }
+                }
+                weights[largest] += WEIGHT_ONE - sum;
+            }
+        }
+    }
+
+    private static class WeightKey {
+        private final int sourceSize;
+        private final int targetSize;
+        private final ResampleFilter filter;
+
+        private WeightKey(int sourceSize, int targetSize, ResampleFilter filter) {
+            this.sourceSize = sourceSize;
+            this.targetSize = targetSize;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            WeightKey weightKey = (WeightKey) o;
+
+            return sourceSize == weightKey.sourceSize &&
+                   targetSize == weightKey.targetSize &&
+                   filter == weightKey.filter;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sourceSize;
+            result = 31 * result + targetSize;
+            result = 31 * result + filter.hashCode();
+            return result;
+        }
+    }
+
+    /**
+     * Per thread buffers, which only grow, so subsequent resizes don't allocate intermediate rasters.
+     */
+    private static class Scratch {
+        private int[] source = new int[0];
+        private int[] intermediate = new int[0];
+        private int[] row = new int[0];
+        private int[] accumulator = new int[0];
+
+        int[] source(int length) {
+            if (source.length < length) {
+                source = new int[length];
+            }
+            return source;
+        }
+
+        int[] intermediate(int length) {
+            if (intermediate.length < length) {
+                intermediate = new int[length];
+            }
+            return intermediate;
+        }
+
+        int[] row(int length) {
+            if (row.length < length) {
+                row = new int[length];
+            }
+            return row;
+        }
+
+        int[] accumulator(int length) {
+            if (accumulator.length < length) {
+                accumulator = new int[length];
+            }
+            return accumulator;
+        }
+    }
+}
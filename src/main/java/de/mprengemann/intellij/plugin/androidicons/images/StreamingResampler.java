@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import de.mprengemann.intellij.plugin.androidicons.util.ImageUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Resizes an image file to several sizes without decoding it completely. The source is read row by row exactly once,
+ * every row is filtered horizontally into a ring buffer per target, which holds just as many rows as the vertical
+ * filter of the target needs. Non-interlaced PNGs are inflated row by row, all other images are read in strips of
+ * rows through {@link ImageReadParam#setSourceRegion(Rectangle)}. Besides the results only a row or strip and the ring
+ * buffers are kept in memory.
+ */
+public class StreamingResampler {
+
+    private static final int STRIP_PIXELS = 1 << 22;
+
+    private StreamingResampler() {
+    }
+
+    /**
+     * @return the source resized to every one of the given sizes, each with the filter at the same index.
+     */
+    public static BufferedImage[] resize(File file, Dimension[] sizes, ResampleFilter[] filters) throws IOException {
+        final PngRowReader pngReader = PngRowReader.open(file);
+        if (pngReader != null) {
+            try {
+                return resize(new PngRowSource(pngReader), sizes, filters);
+            } finally {
+                pngReader.close();
+            }
+        }
+        final ImageInputStream stream = ImageIO.createImageInputStream(file);
+        if (stream == null) {
+            throw new IOException(String.format("Couldn't open %s.", file));
+        }
+        try {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException(String.format("Couldn't decode %s.", file));
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                return resize(new StripRowSource(reader), sizes, filters);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static BufferedImage[] resize(RowSource source,
+                                          Dimension[] sizes,
+                                          ResampleFilter[] filters) throws IOException {
+        final int sourceWidth = source.getWidth();
+        final int sourceHeight = source.getHeight();
+        final Target[] targets = new Target[sizes.length];
+        final BufferedImage[] results = new BufferedImage[sizes.length];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = new Target(sourceWidth,
+                                    sourceHeight,
+                                    Math.max(1, sizes[i].width),
+                                    Math.max(1, sizes[i].height),
+                                    filters[i]);
+            results[i] = targets[i].result;
+        }
+        final int[] row = new int[sourceWidth];
+        for (int y = 0; y < sourceHeight; y++) {
+            source.readRow(row);
+            SeparableResampler.premultiply(row, 0, row, sourceWidth);
+            for (Target target : targets) {
+                target.addRow(y, row);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Ring buffer, accumulator and result of a single target size.
+     */
+    private static class Target {
+        private final SeparableResampler.WeightTable horizontal;
+        private final SeparableResampler.WeightTable vertical;
+        private final int width;
+        private final int height;
+        private final int ringSize;
+        private final int[] ring;
+        private final int[] accumulator;
+        private final BufferedImage result;
+        private final int[] pixels;
+        private int nextRow;
+
+        private Target(int sourceWidth, int sourceHeight, int width, int height, ResampleFilter filter) {
+            this.horizontal = SeparableResampler.getWeights(sourceWidth, width, filter);
+            this.vertical = SeparableResampler.getWeights(sourceHeight, height, filter);
+            this.width = width;
+            this.height = height;
+            this.ringSize = vertical.stride;
+            this.ring = new int[ringSize * width];
+            this.accumulator = new int[width * 4];
+            this.result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            this.pixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        }
+
+        /**
+         * Filters the given premultiplied source row horizontally, if any target row needs it, and writes all target
+         * rows, which are complete once it's added.
+         */
+        private void addRow(int sourceRow, int[] row) {
+            if (nextRow >= height || sourceRow < vertical.starts[nextRow]) {
+                return;
+            }
+            SeparableResampler.resampleRow(row, ring, (sourceRow % ringSize) * width, horizontal);
+            while (nextRow < height && vertical.starts[nextRow] + vertical.counts[nextRow] <= sourceRow + 1) {
+                final int start = vertical.starts[nextRow];
+                SeparableResampler.clear(accumulator, width * 4);
+                final int offset = nextRow * vertical.stride;
+                for (int tap = 0; tap < vertical.counts[nextRow]; tap++) {
+                    SeparableResampler.accumulate(ring,
+                                                  ((start + tap) % ringSize) * width,
+                                                  vertical.weights[offset + tap],
+                                                  accumulator,
+                                                  width);
+                }
+                SeparableResampler.unpremultiply(accumulator, pixels, nextRow * width, width);
+                nextRow++;
+            }
+        }
+    }
+
+    private interface RowSource {
+        int getWidth() throws IOException;
+
+        int getHeight() throws IOException;
+
+        void readRow(int[] row) throws IOException;
+    }
+
+    private static class PngRowSource implements RowSource {
+        private final PngRowReader reader;
+
+        private PngRowSource(PngRowReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int getWidth() {
+            return reader.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return reader.getHeight();
+        }
+
+        @Override
+        public void readRow(int[] row) throws IOException {
+            reader.readRow(row);
+        }
+    }
+
+    /**
+     * Reads the rows of any other image in consecutive strips, each strip is decoded once.
+     */
+    private static class StripRowSource implements RowSource {
+        private final ImageReader reader;
+        private final int sourceWidth;
+        private final int sourceHeight;
+        private final int stripHeight;
+        private BufferedImage strip;
+        private int stripStart;
+        private int nextRow;
+
+        private StripRowSource(ImageReader reader) throws IOException {
+            this.reader = reader;
+            this.sourceWidth = reader.getWidth(0);
+            this.sourceHeight = reader.getHeight(0);
+            this.stripHeight = Math.max(1, Math.min(sourceHeight, STRIP_PIXELS / sourceWidth));
+        }
+
+        @Override
+        public int getWidth() {
+            return sourceWidth;
+        }
+
+        @Override
+        public int getHeight() {
+            return sourceHeight;
+        }
+
+        @Override
+        public void readRow(int[] row) throws IOException {
+            if (strip == null || nextRow >= stripStart + strip.getHeight()) {
+                stripStart = nextRow;
+                final ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(0,
+                                                    nextRow,
+                                                    sourceWidth,
+                                                    Math.min(stripHeight, sourceHeight - nextRow)));
+                strip = null;
+                strip = ImageUtils.normalizeGray(reader.read(0, param));
+            }
+            strip.getRGB(0, nextRow - stripStart, sourceWidth, 1, row, 0, sourceWidth);
+            nextRow++;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.images;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Generates the colour variants of the icon pack assets from a single alpha master. A colour is either one of the
+ * named colours of the icon packs or given as #RRGGBB or #AARRGGBB, where AA is the opacity applied to the master.
+ */
+public class TintEngine {
+
+    private static final int MAX_TABLES = 16;
+    private static final Map<String, Integer> COLORS = new HashMap<String, Integer>();
+
+    static {
+        COLORS.put("black", 0xff000000);
+        COLORS.put("white", 0xffffffff);
+        COLORS.put("blue_dark", 0xff0099cc);
+        COLORS.put("blue_light", 0xff33b5e5);
+        COLORS.put("green_dark", 0xff669900);
+        COLORS.put("green_light", 0xff99cc00);
+        COLORS.put("holo_dark", 0xccffffff);
+        COLORS.put("holo_light", 0x99343434);
+        COLORS.put("purple_dark", 0xff9933cc);
+        COLORS.put("purple_light", 0xffaa66cc);
+        COLORS.put("red_dark", 0xffcc0000);
+        COLORS.put("red_light", 0xffff4444);
+        COLORS.put("yellow_dark", 0xffff8800);
+        COLORS.put("yellow_light", 0xffffbb33);
+    }
+
+    private static final Map<Integer, int[]> TABLES = new LinkedHashMap<Integer, int[]>(MAX_TABLES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+            return size() > MAX_TABLES;
+        }
+    };
+
+    private TintEngine() {
+    }
+
+    /**
+     * @return the ARGB value of the given colour or null, if it's neither a known name nor a hex colour.
+     */
+    @Nullable
+    public static Integer getColor(String color) {
+        if (color == null) {
+            return null;
+        }
+        final Integer namedColor = COLORS.get(color.toLowerCase(Locale.ENGLISH));
+        if (namedColor != null) {
+            return namedColor;
+        }
+        if (!color.startsWith("#") || (color.length() != 7 && color.length() != 9)) {
+            return null;
+        }
+        try {
+            final long value = Long.parseLong(color.substring(1), 16);
+            return color.length() == 7 ? (int) (0xff000000L | value) : (int) value;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return a new image with the alpha of the given master and the given colour.
+     */
+    public static BufferedImage tint(BufferedImage master, int color) {
+        final int width = master.getWidth();
+        final int height = master.getHeight();
+        final int[] pixels = master.getRGB(0, 0, width, height, null, 0, width);
+        final int[] table = getTable(color);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = table[pixels[i] >>> 24];
+        }
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * @return the tinted pixel for every alpha value of the master
+     */
+    private static int[] getTable(int color) {
+        synchronized (TABLES) {
+            int[] table = TABLES.get(color);
+            if (table == null) {
+                table = new int[256];
+                final int rgb = color & 0xffffff;
+                final int opacity = color >>> 24;
+                for (int alpha = 1; alpha < table.length; alpha++) {
+                    table[alpha] = (alpha * opacity + 127) / 255 << 24 | rgb;
+                }
+                TABLES.put(color, table);
+            }
+            return table;
+        }
+    }
+}
@@ -58,6 +58,24 @@ public class ImageAsset implements Comparable<ImageAsset>,
         return name;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ImageAsset that = (ImageAsset) o;
+
+        return name.equals(that.name) && pack.equals(that.pack) && category.equals(that.category);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name.hashCode();
+        result = 31 * result + pack.hashCode();
+        result = 31 * result + category.hashCode();
+        return result;
+    }
+
     @Override
     public int compareTo(@NotNull ImageAsset o) {
         return getName().compareTo(o.getName());
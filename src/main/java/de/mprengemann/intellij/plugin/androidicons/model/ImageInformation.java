@@ -13,7 +13,6 @@
 
 package de.mprengemann.intellij.plugin.androidicons.model;
 
-import com.intellij.openapi.application.PathManager;
 import de.mprengemann.intellij.plugin.androidicons.controllers.defaults.DefaultsController;
 import de.mprengemann.intellij.plugin.androidicons.images.ResizeAlgorithm;
 
@@ -23,8 +22,9 @@ import java.util.Locale;
 public class ImageInformation {
 
     public static final String TARGET_FILE_PATTERN = "%s/%s-%s/%s.%s";
-    public static final String TMP_ROOT_DIR = "plugin-images";
     private final File imageFile;
+    private final File archiveFile;
+    private final String archiveEntry;
     private final Resolution targetResolution;
     private final float factor;
     private final String exportPath;
@@ -37,6 +37,8 @@ public class ImageInformation {
     private Object method;
 
     private ImageInformation(File imageFile,
+                             File archiveFile,
+                             String archiveEntry,
                              Resolution targetResolution,
                              float factor,
                              String exportPath,
@@ -48,6 +50,8 @@ public class ImageInformation {
                              ResizeAlgorithm algorithm,
                              Object method) {
         this.imageFile = imageFile;
+        this.archiveFile = archiveFile;
+        this.archiveEntry = archiveEntry;
         this.targetResolution = targetResolution;
         this.factor = factor;
         this.exportPath = exportPath;
@@ -68,18 +72,22 @@ public class ImageInformation {
         return new Builder(imageInformation);
     }
 
-    public static File getTempDir() {
-        return new File(PathManager.getPluginTempPath(), TMP_ROOT_DIR);
+    public File getImageFile() {
+        return imageFile;
     }
 
-    public File getTempImage() {
-        return new File(getTempDir(), String.format("%s/%s",
-                                                    targetResolution.toString().toLowerCase(Locale.ENGLISH),
-                                                    exportName));
+    /**
+     * @return the archive containing the image or null, if the image is a plain file.
+     */
+    public File getArchiveFile() {
+        return archiveFile;
     }
 
-    public File getImageFile() {
-        return imageFile;
+    /**
+     * @return the name of the image's entry in its archive or null, if the image is a plain file.
+     */
+    public String getArchiveEntry() {
+        return archiveEntry;
     }
 
     public Resolution getTargetResolution() {
@@ -134,6 +142,8 @@ public class ImageInformation {
     public static class Builder {
 
         private File imageFile = null;
+        private File archiveFile = null;
+        private String archiveEntry = null;
         private String exportPath = null;
         private String exportName = null;
         private float factor = 1f;
@@ -152,6 +162,8 @@ public class ImageInformation {
 
         private Builder(ImageInformation imageInformation) {
             this.imageFile = imageInformation.imageFile;
+            this.archiveFile = imageInformation.archiveFile;
+            this.archiveEntry = imageInformation.archiveEntry;
             this.targetResolution = imageInformation.targetResolution;
             this.factor = imageInformation.factor;
             this.exportPath = imageInformation.exportPath;
@@ -212,6 +224,15 @@ public class ImageInformation {
             return this;
         }
 
+        /**
+         * Reads the image from an entry of the given archive instead of a plain file.
+         */
+        public Builder setArchiveEntry(File archiveFile, String archiveEntry) {
+            this.archiveFile = archiveFile;
+            this.archiveEntry = archiveEntry;
+            return setImageFile(new File(archiveFile, archiveEntry));
+        }
+
         public Builder setFormat(Format format) {
             this.format = isNinePatch() ? Format.PNG : format;
             return this;
@@ -224,6 +245,8 @@ public class ImageInformation {
 
         public ImageInformation build() {
             return new ImageInformation(this.imageFile,
+                                        this.archiveFile,
+                                        this.archiveEntry,
                                         this.targetResolution,
                                         this.factor,
                                         this.exportPath,
@@ -0,0 +1,206 @@
+package de.mprengemann.intellij.plugin.androidicons.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.intellij.openapi.diagnostic.Logger;
+import de.mprengemann.intellij.plugin.androidicons.images.ImageEncoder;
+import de.mprengemann.intellij.plugin.androidicons.images.ResizeAlgorithm;
+import de.mprengemann.intellij.plugin.androidicons.util.HashUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Record of all drawables, which were generated into a resource root. It's stored next to the resource root and maps
+ * every generated file to its source and the parameters it was exported with. As the manifest is usually shared with
+ * the project, sources within the project are stored relative to its base directory.
+ */
+public class ImportManifest {
+
+    private static final Logger LOGGER = Logger.getInstance(ImportManifest.class);
+    private static final String FILE_NAME = "android-drawable-importer.json";
+    private static final String ENCODING = "UTF-8";
+    private static final int VERSION = 1;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private int version = VERSION;
+    private Map<String, Entry> entries = new TreeMap<String, Entry>();
+    private transient File baseDir;
+
+    public static File getFile(File resRoot) {
+        return new File(resRoot.getParentFile(), FILE_NAME);
+    }
+
+    /**
+     * @param baseDir the base directory of the project, relative sources are resolved against it
+     */
+    public static ImportManifest read(File resRoot, @Nullable File baseDir) {
+        final File file = getFile(resRoot);
+        if (file.isFile()) {
+            try {
+                final ImportManifest manifest = GSON.fromJson(FileUtils.readFileToString(file, ENCODING),
+                                                              ImportManifest.class);
+                if (manifest != null && manifest.version == VERSION && manifest.entries != null) {
+                    manifest.baseDir = baseDir;
+                    return manifest;
+                }
+            } catch (IOException e) {
+                LOGGER.warn(e);
+            } catch (JsonParseException e) {
+                LOGGER.warn(e);
+            }
+        }
+        final ImportManifest manifest = new ImportManifest();
+        manifest.baseDir = baseDir;
+        return manifest;
+    }
+
+    /**
+     * @return the content of the manifest file, it's written by the caller within the write command of the exports.
+     */
+    public byte[] getContent() throws IOException {
+        return GSON.toJson(this).getBytes(ENCODING);
+    }
+
+    public void put(ImageInformation information, String sourceHash, ImageEncoder encoder) {
+        final Entry entry = new Entry(information, sourceHash, encoder, baseDir);
+        entries.put(getTargetPath(information), entry);
+    }
+
+    /**
+     * Collects all entries, which have to be generated again, because their source or the generated file itself
+     * changed, or because they were encoded with other settings than the given encoder. Entries whose source doesn't
+     * exist anymore are skipped.
+     */
+    public List<ImageInformation> getOutdated(File resRoot, ImageEncoder encoder) throws IOException {
+        final List<ImageInformation> outdated = new ArrayList<ImageInformation>();
+        final Map<String, String> sourceHashes = new TreeMap<String, String>();
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            final Entry entry = mapEntry.getValue();
+            final File source = getSourceFile(entry.source, baseDir);
+            if (!source.isFile()) {
+                LOGGER.warn(String.format("Source %s of %s doesn't exist anymore.", entry.source, mapEntry.getKey()));
+                continue;
+            }
+            String sourceHash = sourceHashes.get(entry.source);
+            if (sourceHash == null) {
+                sourceHash = HashUtils.sha1(source);
+                sourceHashes.put(entry.source, sourceHash);
+            }
+            final ImageInformation information = entry.toImageInformation(resRoot, source);
+            if (!sourceHash.equals(entry.sourceHash) ||
+                !getParametersHash(information, encoder).equals(entry.parametersHash) ||
+                !information.getTargetFile().isFile()) {
+                outdated.add(information);
+            }
+        }
+        return outdated;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    private static String getTargetPath(ImageInformation information) {
+        return String.format("%s-%s/%s.%s",
+                             information.getDestination().getFolderName(),
+                             information.getTargetResolution().toString().toLowerCase(Locale.ENGLISH),
+                             information.getExportName(),
+                             information.getFormat().toString().toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @return the path of the source relative to the base directory or its absolute path, if it's outside of it
+     */
+    private static String getSourcePath(File source, @Nullable File baseDir) {
+        final String sourcePath = FilenameUtils.separatorsToUnix(source.getAbsolutePath());
+        if (baseDir == null) {
+            return sourcePath;
+        }
+        final String basePath = FilenameUtils.separatorsToUnix(baseDir.getAbsolutePath()) + '/';
+        return sourcePath.startsWith(basePath) ? sourcePath.substring(basePath.length()) : sourcePath;
+    }
+
+    private static File getSourceFile(String sourcePath, @Nullable File baseDir) {
+        final File source = new File(FilenameUtils.separatorsToSystem(sourcePath));
+        return source.isAbsolute() || baseDir == null ? source : new File(baseDir, source.getPath());
+    }
+
+    private static String getParametersHash(ImageInformation information, ImageEncoder encoder) {
+        final ResizeAlgorithm algorithm = information.getAlgorithm();
+        return HashUtils.sha1(String.format("%s|%s|%s|%s|%s|%b|%b|%s",
+                                            Float.toString(information.getFactor()),
+                                            algorithm,
+                                            algorithm.getPrettyMethod(information.getMethod()),
+                                            information.getFormat(),
+                                            information.getDestination(),
+                                            information.isNinePatch(),
+                                            information.isVector(),
+                                            getEncoderSettings(information, encoder)));
+    }
+
+    /**
+     * Vectors are copied as they are, so they don't depend on the encoder.
+     */
+    private static String getEncoderSettings(ImageInformation information, ImageEncoder encoder) {
+        return information.isVector() ? "" : encoder.toString();
+    }
+
+    private static class Entry {
+        private String source;
+        private String sourceHash;
+        private String exportName;
+        private String resolution;
+        private float factor;
+        private String algorithm;
+        private String method;
+        private String format;
+        private String destination;
+        private boolean ninePatch;
+        private boolean vector;
+        private String encoder;
+        private String parametersHash;
+
+        private Entry(ImageInformation information, String sourceHash, ImageEncoder encoder, @Nullable File baseDir) {
+            this.source = getSourcePath(information.getImageFile(), baseDir);
+            this.sourceHash = sourceHash;
+            this.exportName = information.getExportName();
+            this.resolution = information.getTargetResolution().toString();
+            this.factor = information.getFactor();
+            this.algorithm = information.getAlgorithm().toString();
+            this.method = information.getAlgorithm().getPrettyMethod(information.getMethod());
+            this.format = information.getFormat().name();
+            this.destination = information.getDestination().name();
+            this.ninePatch = information.isNinePatch();
+            this.vector = information.isVector();
+            this.encoder = getEncoderSettings(information, encoder);
+            this.parametersHash = getParametersHash(information, encoder);
+        }
+
+        private ImageInformation toImageInformation(File resRoot, File sourceFile) {
+            final ResizeAlgorithm resizeAlgorithm = ResizeAlgorithm.from(algorithm);
+            return ImageInformation.newBuilder()
+                                   .setImageFile(sourceFile)
+                                   .setExportName(exportName)
+                                   .setExportPath(resRoot.getPath())
+                                   .setTargetResolution(Resolution.from(resolution))
+                                   .setFactor(factor)
+                                   .setAlgorithm(resizeAlgorithm)
+                                   .setMethod(resizeAlgorithm.getMethod(method))
+                                   .setNinePatch(ninePatch)
+                                   .setVector(vector)
+                                   .setFormat(Format.valueOf(format))
+                                   .setDestination(Destination.valueOf(destination))
+                                   .build();
+        }
+    }
+}
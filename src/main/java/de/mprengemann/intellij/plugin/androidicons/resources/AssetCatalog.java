@@ -0,0 +1,201 @@
+package de.mprengemann.intellij.plugin.androidicons.resources;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.intellij.openapi.diagnostic.Logger;
+import de.mprengemann.intellij.plugin.androidicons.model.IconPack;
+import de.mprengemann.intellij.plugin.androidicons.model.ImageAsset;
+import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the icon packs bundled with the plugin. The build converts content.json into the binary content.bin, which
+ * consists of a string table, a resolution table and one section per icon pack. Each pack section starts with the
+ * distinct resolution, colour and size lists of its assets, the assets only refer to them by index. content.json is
+ * only parsed if the binary catalog is missing or outdated.
+ * <p>
+ * Either way all assets with equal variants share the same immutable lists.
+ */
+public class AssetCatalog {
+
+    private static final String TAG = AssetCatalog.class.getSimpleName();
+    private static final Logger LOGGER = Logger.getInstance(TAG);
+
+    static final int MAGIC = 0x41444943;
+    static final int VERSION = 2;
+
+    private AssetCatalog() {
+    }
+
+    public static List<IconPack> load() {
+        final long start = System.currentTimeMillis();
+        List<IconPack> iconPacks = null;
+        final InputStream binaryCatalog = ResourceLoader.getBundledResourceStream("content.bin");
+        if (binaryCatalog != null) {
+            try {
+                iconPacks = read(new DataInputStream(new BufferedInputStream(binaryCatalog)));
+            } catch (IOException e) {
+                LOGGER.warn(e);
+            } finally {
+                IOUtils.closeQuietly(binaryCatalog);
+            }
+        }
+        if (iconPacks == null) {
+            iconPacks = readJson();
+        }
+        LOGGER.info(String.format("Loaded icon packs in %d ms", System.currentTimeMillis() - start));
+        return iconPacks;
+    }
+
+    private static List<IconPack> read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            LOGGER.warn("Ignoring outdated binary catalog");
+            return null;
+        }
+        final String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        final Resolution[] resolutions = new Resolution[in.readUnsignedByte()];
+        for (int i = 0; i < resolutions.length; i++) {
+            resolutions[i] = Resolution.from(strings[in.readInt()]);
+        }
+        final Interner interner = new Interner();
+        final int packCount = in.readInt();
+        final List<IconPack> iconPacks = new ArrayList<IconPack>(packCount);
+        for (int i = 0; i < packCount; i++) {
+            final String name = strings[in.readInt()];
+            final String id = strings[in.readInt()];
+            final String url = strings[in.readInt()];
+            final String path = strings[in.readInt()];
+            final List<String> categories = readStrings(in, strings);
+            final List<List<Resolution>> resolutionSets = new ArrayList<List<Resolution>>();
+            final int resolutionSetCount = in.readUnsignedShort();
+            for (int j = 0; j < resolutionSetCount; j++) {
+                final int resolutionCount = in.readUnsignedByte();
+                final List<Resolution> resolutionSet = new ArrayList<Resolution>(resolutionCount);
+                for (int k = 0; k < resolutionCount; k++) {
+                    resolutionSet.add(resolutions[in.readUnsignedByte()]);
+                }
+                resolutionSets.add(interner.intern(resolutionSet));
+            }
+            final List<List<String>> colorSets = readStringSets(in, strings, interner);
+            final List<List<String>> sizeSets = readStringSets(in, strings, interner);
+            final int assetCount = in.readInt();
+            final List<ImageAsset> assets = new ArrayList<ImageAsset>(assetCount);
+            for (int j = 0; j < assetCount; j++) {
+                final String assetName = strings[in.readInt()];
+                final String pack = strings[in.readInt()];
+                final String category = strings[in.readInt()];
+                assets.add(new ImageAsset(assetName,
+                                          pack,
+                                          category,
+                                          resolutionSets.get(in.readUnsignedShort()),
+                                          colorSets.get(in.readUnsignedShort()),
+                                          sizeSets.get(in.readUnsignedShort())));
+            }
+            iconPacks.add(new IconPack(name, id, url, path, assets, categories));
+        }
+        return iconPacks;
+    }
+
+    private static List<List<String>> readStringSets(DataInputStream in,
+                                                     String[] strings,
+                                                     Interner interner) throws IOException {
+        final int count = in.readUnsignedShort();
+        final List<List<String>> sets = new ArrayList<List<String>>(count);
+        for (int i = 0; i < count; i++) {
+            sets.add(interner.intern(readStrings(in, strings)));
+        }
+        return sets;
+    }
+
+    private static List<String> readStrings(DataInputStream in, String[] strings) throws IOException {
+        final int count = in.readUnsignedShort();
+        final List<String> values = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(strings[in.readInt()]);
+        }
+        return values;
+    }
+
+    private static List<IconPack> readJson() {
+        final InputStream contentFile = ResourceLoader.getBundledResourceStream("content.json");
+        if (contentFile == null) {
+            LOGGER.error("Missing icon pack catalog");
+            return Collections.emptyList();
+        }
+        try {
+            final Type listType = new TypeToken<ArrayList<IconPack>>() {}.getType();
+            GsonBuilder gsonBuilder = new GsonBuilder();
+            gsonBuilder.registerTypeAdapter(Resolution.class, new Resolution.Deserializer());
+            final Gson gson = gsonBuilder.create();
+            return intern(gson.<List<IconPack>>fromJson(new InputStreamReader(contentFile, "UTF-8"), listType));
+        } catch (IOException e) {
+            LOGGER.error(e);
+            return Collections.emptyList();
+        } finally {
+            IOUtils.closeQuietly(contentFile);
+        }
+    }
+
+    private static List<IconPack> intern(List<IconPack> iconPacks) {
+        final Interner interner = new Interner();
+        final List<IconPack> internedPacks = new ArrayList<IconPack>(iconPacks.size());
+        for (IconPack iconPack : iconPacks) {
+            final List<ImageAsset> assets = new ArrayList<ImageAsset>(iconPack.getAssets().size());
+            for (ImageAsset asset : iconPack.getAssets()) {
+                assets.add(new ImageAsset(asset.getName(),
+                                          interner.intern(asset.getIconPack()),
+                                          interner.intern(asset.getCategory()),
+                                          interner.intern(asset.getResolutions()),
+                                          interner.intern(asset.getColors()),
+                                          interner.intern(asset.getSizes())));
+            }
+            internedPacks.add(new IconPack(iconPack.getName(),
+                                           iconPack.getId(),
+                                           iconPack.getUrl(),
+                                           iconPack.getPath(),
+                                           assets,
+                                           iconPack.getCategories()));
+        }
+        return internedPacks;
+    }
+
+    private static class Interner {
+        private final Map<Object, Object> values = new HashMap<Object, Object>();
+
+        @SuppressWarnings("unchecked")
+        private <T> List<T> intern(List<T> list) {
+            final List<T> interned = (List<T>) values.get(list);
+            if (interned != null) {
+                return interned;
+            }
+            final List<T> value = Collections.unmodifiableList(new ArrayList<T>(list));
+            values.put(value, value);
+            return value;
+        }
+
+        private String intern(String string) {
+            final String interned = (String) values.get(string);
+            if (interned != null) {
+                return interned;
+            }
+            values.put(string, string);
+            return string;
+        }
+    }
+}
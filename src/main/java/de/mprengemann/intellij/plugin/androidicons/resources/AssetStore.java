@@ -0,0 +1,213 @@
+package de.mprengemann.intellij.plugin.androidicons.resources;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.io.FileUtil;
+import de.mprengemann.intellij.plugin.androidicons.images.TintEngine;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Serves the files of the icon packs straight from the bundled archive, using its central directory to find single
+ * entries. Nothing is extracted upfront, a file is only written to the export path if a caller needs it as a file.
+ * Colour variants missing in the archive are tinted from their master. Without the archive, the previously extracted
+ * files are used.
+ */
+public class AssetStore {
+
+    private static final String TAG = AssetStore.class.getSimpleName();
+    private static final Logger LOGGER = Logger.getInstance(TAG);
+    private static final String ARCHIVE_NAME = "icon_packs.zip";
+
+    private static AssetStore instance;
+
+    private final ZipFile archive;
+    private final File exportPath;
+
+    private AssetStore(@Nullable ZipFile archive, File exportPath) {
+        this.archive = archive;
+        this.exportPath = exportPath;
+    }
+
+    public static synchronized AssetStore getInstance() {
+        if (instance == null) {
+            ZipFile archive = null;
+            final File archiveFile = ResourceLoader.getBundledResource(ARCHIVE_NAME);
+            if (archiveFile != null) {
+                try {
+                    archive = new ZipFile(archiveFile);
+                } catch (IOException e) {
+                    LOGGER.error(e);
+                }
+            } else {
+                LOGGER.warn("Missing " + ARCHIVE_NAME + ", using extracted icon packs");
+            }
+            instance = new AssetStore(archive, ResourceLoader.getExportPath());
+        }
+        return instance;
+    }
+
+    public static synchronized void release() {
+        if (instance == null) {
+            return;
+        }
+        if (instance.archive != null) {
+            try {
+                instance.archive.close();
+            } catch (IOException e) {
+                LOGGER.warn(e);
+            }
+        }
+        instance = null;
+    }
+
+    /**
+     * @return the given colour variant of an icon pack file below the export path. If the archive doesn't contain the
+     * variant, it's generated from the master file and kept for later use.
+     */
+    public File getTintedFile(String path, String masterPath, String color) {
+        if (archive == null || path.equals(masterPath) || archive.getEntry(path) != null) {
+            return getFile(path);
+        }
+        final File file = new File(exportPath, path);
+        final Integer tint = TintEngine.getColor(color);
+        if (file.exists() || tint == null) {
+            return file;
+        }
+        InputStream in = null;
+        File tempFile = null;
+        try {
+            in = open(masterPath);
+            final BufferedImage master = in == null ? null : ImageIO.read(in);
+            if (master == null) {
+                return file;
+            }
+            FileUtils.forceMkdir(file.getParentFile());
+            tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            ImageIO.write(TintEngine.tint(master, tint), "png", tempFile);
+            if (!tempFile.renameTo(file) && !file.exists()) {
+                throw new IOException("Couldn't move " + tempFile + " to " + file);
+            }
+        } catch (IOException e) {
+            LOGGER.error(e);
+        } finally {
+            IOUtils.closeQuietly(in);
+            FileUtils.deleteQuietly(tempFile);
+        }
+        return file;
+    }
+
+    /**
+     * Deletes the files below the given icon pack path, which differ from their archive entry in size or CRC-32 or
+     * which aren't part of the archive anymore. Unchanged files are kept, so running it again after an interruption
+     * only continues the work.
+     *
+     * @return the number of deleted files
+     */
+    public int removeOutdatedFiles(String path) {
+        final File root = new File(exportPath, path);
+        if (archive == null || !root.isDirectory()) {
+            return 0;
+        }
+        int removed = 0;
+        for (File file : FileUtils.listFiles(root, null, true)) {
+            ProgressManager.checkCanceled();
+            final String entryName = FileUtil.toSystemIndependentName(FileUtil.getRelativePath(exportPath, file));
+            final ZipEntry entry = archive.getEntry(entryName);
+            if (entry != null && entry.getSize() == file.length() && entry.getCrc() == getCrc(file)) {
+                continue;
+            }
+            if (file.delete()) {
+                removed++;
+            } else {
+                LOGGER.warn("Couldn't delete outdated " + file);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the CRC-32 of the given icon pack file as recorded in the archive. Without archive the length of the
+     * extracted file is used instead.
+     */
+    public long getChecksum(String path) {
+        if (archive == null) {
+            return new File(exportPath, path).length();
+        }
+        final ZipEntry entry = archive.getEntry(path);
+        return entry == null ? -1 : entry.getCrc();
+    }
+
+    private static long getCrc(File file) {
+        try {
+            return FileUtils.checksumCRC32(file);
+        } catch (IOException e) {
+            LOGGER.warn(e);
+            return -1;
+        }
+    }
+
+    /**
+     * @return the content of the given icon pack file or null, if there is no such file.
+     */
+    @Nullable
+    public InputStream open(String path) throws IOException {
+        if (archive != null) {
+            final ZipEntry entry = archive.getEntry(path);
+            return entry == null ? null : archive.getInputStream(entry);
+        }
+        final File file = new File(exportPath, path);
+        return file.exists() ? new FileInputStream(file) : null;
+    }
+
+    /**
+     * @return the given icon pack file below the export path. The file is taken from the archive, if it wasn't
+     * written before.
+     */
+    public File getFile(String path) {
+        final File file = new File(exportPath, path);
+        if (archive == null) {
+            return file;
+        }
+        final ZipEntry entry = archive.getEntry(path);
+        if (entry == null || (file.exists() && file.length() == entry.getSize())) {
+            return file;
+        }
+        InputStream in = null;
+        OutputStream out = null;
+        File tempFile = null;
+        try {
+            FileUtils.forceMkdir(file.getParentFile());
+            tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            in = archive.getInputStream(entry);
+            out = new FileOutputStream(tempFile);
+            IOUtils.copy(in, out);
+            out.close();
+            if (!tempFile.renameTo(file)) {
+                FileUtils.deleteQuietly(file);
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("Couldn't move " + tempFile + " to " + file);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error(e);
+        } finally {
+            IOUtils.closeQuietly(in);
+            IOUtils.closeQuietly(out);
+            FileUtils.deleteQuietly(tempFile);
+        }
+        return file;
+    }
+}
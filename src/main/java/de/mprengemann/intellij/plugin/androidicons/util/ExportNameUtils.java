@@ -27,7 +27,10 @@ public class ExportNameUtils {
     }
 
     public static String getExportNameFromFilename(String filename) {
-        String exportName = FilenameUtils.removeExtension(filename);
+        return getExportName(FilenameUtils.removeExtension(filename));
+    }
+
+    public static String getExportName(String exportName) {
         if (exportName.matches("[a-z0-9_.]*")) {
             return exportName;
         }
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+package de.mprengemann.intellij.plugin.androidicons.util;
+
+import de.mprengemann.intellij.plugin.androidicons.model.Destination;
+import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies import candidates of the zip, folder and drag and drop imports. The image type is detected from the
+ * first bytes of the file, density and destination from the qualifiers in its name and folder. A folder only counts,
+ * if one of its qualifiers separated by '-' or '_' is a density, and only the folders of an archive entry or the
+ * immediate parent of a file are considered. All patterns are compiled once.
+ */
+public class ImageClassifier {
+
+    public enum Type {
+        PNG, JPG, GIF, BMP, UNKNOWN
+    }
+
+    public static final int HEADER_LENGTH = 8;
+
+    private static final String NINE_PATCH_SUFFIX = ".9";
+    private static final String DENSITIES = "(xxxhdpi|xxhdpi|xhdpi|hdpi|mdpi|ldpi|tvdpi)";
+    private static final Pattern NAME_DENSITY = Pattern.compile("[-_]+" + DENSITIES, Pattern.CASE_INSENSITIVE);
+    private static final Pattern FOLDER_DENSITY = Pattern.compile("(?:^|[-_])" + DENSITIES + "(?:[-_]|$)",
+                                                                  Pattern.CASE_INSENSITIVE);
+    private static final Pattern MIPMAP = Pattern.compile("(?:^|/)mipmap(?:-[^/]*)?$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IGNORED = Pattern.compile("(?:^|/)(?:__MACOSX/|\\.[^/]*$)");
+    private static final Map<String, Type> EXTENSIONS = new HashMap<String, Type>();
+
+    static {
+        EXTENSIONS.put("png", Type.PNG);
+        EXTENSIONS.put("jpg", Type.JPG);
+        EXTENSIONS.put("jpeg", Type.JPG);
+        EXTENSIONS.put("gif", Type.GIF);
+        EXTENSIONS.put("bmp", Type.BMP);
+    }
+
+    private ImageClassifier() {
+    }
+
+    /**
+     * @return true, if the given path is a hidden file or archive metadata, which should never be imported.
+     */
+    public static boolean isIgnored(String path) {
+        return IGNORED.matcher(FilenameUtils.separatorsToUnix(path)).find();
+    }
+
+    /**
+     * Classifies the given file by its content, its name and the name of its folder. Folders further up are ignored,
+     * as they say nothing about the image. Unreadable files are classified by their extension.
+     */
+    public static Classification classify(File file) {
+        final File folder = file.getParentFile();
+        final String path = folder == null ? file.getName() : folder.getName() + '/' + file.getName();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            return classify(path, readHeader(in));
+        } catch (IOException e) {
+            return classify(path, null);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Classifies the given relative path, e.g. of an archive entry. The type is detected from the header if given,
+     * otherwise from the extension.
+     */
+    public static Classification classify(String path, @Nullable byte[] header) {
+        final String unixPath = FilenameUtils.separatorsToUnix(path);
+        final String folder = FilenameUtils.getPathNoEndSeparator(unixPath);
+        String baseName = FilenameUtils.getBaseName(unixPath);
+        final boolean ninePatch = baseName.endsWith(NINE_PATCH_SUFFIX);
+        if (ninePatch) {
+            baseName = baseName.substring(0, baseName.length() - NINE_PATCH_SUFFIX.length());
+        }
+
+        Resolution resolution = null;
+        final Matcher nameMatcher = NAME_DENSITY.matcher(baseName);
+        if (nameMatcher.find()) {
+            resolution = Resolution.from(nameMatcher.group(1));
+            baseName = nameMatcher.replaceAll("");
+        } else {
+            // The innermost qualified folder wins
+            final String[] segments = folder.split("/");
+            for (int i = segments.length - 1; i >= 0 && resolution == null; i--) {
+                final Matcher folderMatcher = FOLDER_DENSITY.matcher(segments[i]);
+                if (folderMatcher.find()) {
+                    resolution = Resolution.from(folderMatcher.group(1));
+                }
+            }
+        }
+
+        final Destination destination = MIPMAP.matcher(folder).find() ? Destination.MIPMAP : null;
+        final Type type = header == null ? getType(FilenameUtils.getExtension(unixPath)) : getType(header);
+        return new Classification(baseName, resolution, ninePatch && type == Type.PNG, destination, type);
+    }
+
+    /**
+     * @return the first {@link #HEADER_LENGTH} bytes of the given stream, or less if it's shorter.
+     */
+    public static byte[] readHeader(InputStream in) throws IOException {
+        final byte[] header = new byte[HEADER_LENGTH];
+        int length = 0;
+        while (length < header.length) {
+            final int read = in.read(header, length, header.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length == header.length ? header : Arrays.copyOf(header, length);
+    }
+
+    private static Type getType(String extension) {
+        final Type type = EXTENSIONS.get(extension.toLowerCase(Locale.ENGLISH));
+        return type == null ? Type.UNKNOWN : type;
+    }
+
+    private static Type getType(byte[] header) {
+        if (startsWith(header, 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a)) {
+            return Type.PNG;
+        } else if (startsWith(header, 0xff, 0xd8, 0xff)) {
+            return Type.JPG;
+        } else if (startsWith(header, 'G', 'I', 'F', '8')) {
+            return Type.GIF;
+        } else if (startsWith(header, 'B', 'M')) {
+            return Type.BMP;
+        }
+        return Type.UNKNOWN;
+    }
+
+    private static boolean startsWith(byte[] header, int... magic) {
+        if (header.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xff) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class Classification {
+        private final String baseName;
+        private final Resolution resolution;
+        private final boolean ninePatch;
+        private final Destination destination;
+        private final Type type;
+
+        private Classification(String baseName,
+                               Resolution resolution,
+                               boolean ninePatch,
+                               Destination destination,
+                               Type type) {
+            this.baseName = baseName;
+            this.resolution = resolution;
+            this.ninePatch = ninePatch;
+            this.destination = destination;
+            this.type = type;
+        }
+
+        /**
+         * @return the file name without extension, nine-patch suffix and density qualifier.
+         */
+        public String getBaseName() {
+            return baseName;
+        }
+
+        /**
+         * @return the base name including the nine-patch suffix, if the image is a nine-patch.
+         */
+        public String getExportName() {
+            return ninePatch ? baseName + NINE_PATCH_SUFFIX : baseName;
+        }
+
+        /**
+         * @return the density qualifying the image's name or folder or null, if there is none.
+         */
+        @Nullable
+        public Resolution getResolution() {
+            return resolution;
+        }
+
+        public boolean isNinePatch() {
+            return ninePatch;
+        }
+
+        /**
+         * @return the destination of the image's folder or null, if it isn't placed in a mipmap folder.
+         */
+        @Nullable
+        public Destination getDestination() {
+            return destination;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public boolean isImage() {
+            return type != Type.UNKNOWN;
+        }
+    }
+}
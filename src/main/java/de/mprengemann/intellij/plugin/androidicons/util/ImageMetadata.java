@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.util;
+
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dimensions of an image, read from its header without decoding any pixels. PNGs are probed by reading their IHDR
+ * chunk directly, all other formats through their {@link ImageReader}. The results are cached per file until it's
+ * modified.
+ */
+public class ImageMetadata {
+
+    private static final int MAX_ENTRIES = 512;
+    private static final long PNG_SIGNATURE = 0x89504e470d0a1a0aL;
+    private static final int IHDR = 0x49484452;
+    private static final int PNG_HEADER_LENGTH = 33;
+
+    private static final Map<String, ImageMetadata> CACHE = new LinkedHashMap<String, ImageMetadata>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImageMetadata> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final int width;
+    private final int height;
+
+    private ImageMetadata(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public static ImageMetadata read(File imageFile) throws IOException {
+        final String key = String.format("%s|%d|%d", imageFile.getAbsolutePath(), imageFile.lastModified(), imageFile.length());
+        synchronized (CACHE) {
+            final ImageMetadata metadata = CACHE.get(key);
+            if (metadata != null) {
+                return metadata;
+            }
+        }
+        ImageMetadata metadata = null;
+        if (imageFile.length() >= PNG_HEADER_LENGTH) {
+            metadata = readPngHeader(new FileInputStream(imageFile));
+        }
+        if (metadata == null) {
+            metadata = readHeader(imageFile, imageFile.getName());
+        }
+        synchronized (CACHE) {
+            CACHE.put(key, metadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * Reads the metadata of an image held in memory, e.g. an archive entry. The result isn't cached.
+     */
+    public static ImageMetadata read(byte[] content, String name) throws IOException {
+        ImageMetadata metadata = null;
+        if (content.length >= PNG_HEADER_LENGTH) {
+            metadata = readPngHeader(new ByteArrayInputStream(content));
+        }
+        if (metadata == null) {
+            metadata = readHeader(new ByteArrayInputStream(content), name);
+        }
+        return metadata;
+    }
+
+    @Nullable
+    private static ImageMetadata readPngHeader(InputStream stream) throws IOException {
+        final DataInputStream in = new DataInputStream(stream);
+        try {
+            if (in.readLong() != PNG_SIGNATURE) {
+                return null;
+            }
+            in.readInt();
+            if (in.readInt() != IHDR) {
+                return null;
+            }
+            final int width = in.readInt();
+            final int height = in.readInt();
+            return new ImageMetadata(width, height);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static ImageMetadata readHeader(Object input, String name) throws IOException {
+        final ImageInputStream stream = ImageIO.createImageInputStream(input);
+        if (stream == null) {
+            throw new IOException(String.format("Couldn't open %s.", name));
+        }
+        try {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException(String.format("Couldn't decode %s.", name));
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                return new ImageMetadata(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Dimension getSize() {
+        return new Dimension(width, height);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.util;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.ui.UIUtil;
+import de.mprengemann.intellij.plugin.androidicons.model.Format;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Renders image previews into labels off the event dispatch thread. A new request for a label cancels the pending
+ * one, scaled previews are kept in a LRU cache bounded by their pixel memory.
+ */
+public class PreviewService {
+
+    private static final Logger LOGGER = Logger.getInstance(PreviewService.class);
+    private static final String REQUEST_KEY = PreviewService.class.getName();
+    private static final long MAX_CACHE_SIZE = 32 * 1024 * 1024;
+
+    private static final Map<String, BufferedImage> CACHE = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true);
+    private static long cacheSize = 0;
+
+    private PreviewService() {
+    }
+
+    /**
+     * Has to be called on the event dispatch thread.
+     */
+    public static void render(final JLabel imageContainer, final File imageFile, final Format format) {
+        cancel(imageContainer);
+        if (imageFile == null || !imageFile.exists()) {
+            return;
+        }
+        final int boxWidth = (int) imageContainer.getPreferredSize().getWidth();
+        final int boxHeight = (int) imageContainer.getPreferredSize().getHeight();
+        if (boxWidth <= 0 || boxHeight <= 0) {
+            return;
+        }
+
+        final String key = String.format("%s|%d|%d|%dx%d|%s",
+                                         imageFile.getAbsolutePath(),
+                                         imageFile.lastModified(),
+                                         imageFile.length(),
+                                         boxWidth,
+                                         boxHeight,
+                                         format);
+        final BufferedImage cached = getCached(key);
+        if (cached != null) {
+            imageContainer.setIcon(new ImageIcon(cached));
+            return;
+        }
+
+        final Request request = new Request();
+        imageContainer.putClientProperty(REQUEST_KEY, request);
+        request.future = ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                final BufferedImage preview;
+                try {
+                    preview = createPreview(imageFile, format, boxWidth, boxHeight);
+                } catch (IOException e) {
+                    LOGGER.warn(e);
+                    return;
+                }
+                if (preview == null || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                putCached(key, preview);
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (imageContainer.getClientProperty(REQUEST_KEY) != request) {
+                            return;
+                        }
+                        imageContainer.putClientProperty(REQUEST_KEY, null);
+                        imageContainer.setIcon(new ImageIcon(preview));
+                    }
+                });
+            }
+        });
+    }
+
+    private static void cancel(JLabel imageContainer) {
+        final Object pending = imageContainer.getClientProperty(REQUEST_KEY);
+        if (pending instanceof Request) {
+            final Future<?> future = ((Request) pending).future;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        imageContainer.putClientProperty(REQUEST_KEY, null);
+    }
+
+    private static BufferedImage createPreview(File imageFile,
+                                               Format format,
+                                               int boxWidth,
+                                               int boxHeight) throws IOException {
+        final BufferedImage image = decode(imageFile, boxWidth, boxHeight);
+        if (image == null) {
+            return null;
+        }
+        double factor = ImageUtils.getScaleFactorToFit(new Dimension(image.getWidth(), image.getHeight()),
+                                                       new Dimension(boxWidth, boxHeight));
+        final int imageWidth = (int) (factor * image.getWidth());
+        final int imageHeight = (int) (factor * image.getHeight());
+        if (imageWidth <= 0 || imageHeight <= 0) {
+            return null;
+        }
+        BufferedImage preview = UIUtil.createImage(boxWidth, boxHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = preview.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        int x = (boxWidth - imageWidth) / 2;
+        int y = (boxHeight - imageHeight) / 2;
+        if (format == Format.PNG || format == Format.XML) {
+            g2.drawImage(image, x, y, imageWidth, imageHeight, null);
+        } else {
+            g2.drawImage(image, x, y, imageWidth, imageHeight, Color.WHITE, null);
+        }
+        g2.dispose();
+        return preview;
+    }
+
+    /**
+     * Decodes the image with subsampling, so large sources aren't decoded in their full resolution.
+     */
+    private static BufferedImage decode(File imageFile, int boxWidth, int boxHeight) throws IOException {
+        final ImageInputStream stream = ImageIO.createImageInputStream(imageFile);
+        if (stream == null) {
+            return null;
+        }
+        try {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                final int subsampling = Math.max(1, Math.min(reader.getWidth(0) / boxWidth,
+                                                             reader.getHeight(0) / boxHeight));
+                final ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static synchronized BufferedImage getCached(String key) {
+        return CACHE.get(key);
+    }
+
+    private static synchronized void putCached(String key, BufferedImage preview) {
+        final BufferedImage previous = CACHE.put(key, preview);
+        if (previous != null) {
+            cacheSize -= getSize(previous);
+        }
+        cacheSize += getSize(preview);
+        final Iterator<BufferedImage> iterator = CACHE.values().iterator();
+        while (cacheSize > MAX_CACHE_SIZE && iterator.hasNext()) {
+            cacheSize -= getSize(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private static long getSize(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    private static class Request {
+        private volatile Future<?> future;
+    }
+}
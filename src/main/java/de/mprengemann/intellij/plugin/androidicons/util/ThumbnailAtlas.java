@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.util;
+
+import com.intellij.openapi.diagnostic.Logger;
+import de.mprengemann.intellij.plugin.androidicons.model.ImageAsset;
+import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
+import de.mprengemann.intellij.plugin.androidicons.resources.AssetStore;
+import de.mprengemann.intellij.plugin.androidicons.resources.ResourceLoader;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * All thumbnails of an icon pack packed into a single file of raw ARGB pixels. The file starts with an index of the
+ * assets, followed by the pixels of all thumbnails, which are read through a memory mapped buffer.
+ */
+public class ThumbnailAtlas {
+
+    private static final Logger LOGGER = Logger.getInstance(ThumbnailAtlas.class);
+    private static final int MAGIC = 0x41544c53;
+    private static final int VERSION = 2;
+
+    private final Map<String, Entry> entries;
+    private final IntBuffer pixels;
+
+    private ThumbnailAtlas(Map<String, Entry> entries, IntBuffer pixels) {
+        this.entries = entries;
+        this.pixels = pixels;
+    }
+
+    public static File getAtlasDir() {
+        return new File(ResourceLoader.getExportPath(), "atlas");
+    }
+
+    public static String getName(String iconPack, Resolution resolution) {
+        return String.format("%s_%s", iconPack, resolution.toString().toLowerCase(Locale.ENGLISH));
+    }
+
+    public static String getKey(ImageAsset asset) {
+        return String.format("%s/%s", asset.getCategory(), asset.getName());
+    }
+
+    /**
+     * @return a stamp of the given thumbnails, which changes as soon as one of them is added, removed or modified.
+     */
+    public static long getStamp(Map<String, String> thumbnails) {
+        final AssetStore assetStore = AssetStore.getInstance();
+        long stamp = thumbnails.size();
+        for (Map.Entry<String, String> thumbnail : new TreeMap<String, String>(thumbnails).entrySet()) {
+            stamp = 31 * stamp + thumbnail.getKey().hashCode();
+            stamp = 31 * stamp + assetStore.getChecksum(thumbnail.getValue());
+        }
+        return stamp;
+    }
+
+    /**
+     * @return the atlas stored under the given name or null, if there is none or it was built from other thumbnails.
+     */
+    @Nullable
+    public static ThumbnailAtlas open(String name, long stamp) {
+        final File atlasFile = new File(getAtlasDir(), name + ".atlas");
+        if (!atlasFile.exists()) {
+            return null;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(atlasFile, "r");
+            if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+                return null;
+            }
+            final byte[] header = new byte[file.readInt()];
+            file.readFully(header);
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+            if (in.readLong() != stamp) {
+                return null;
+            }
+            final int count = in.readInt();
+            final Map<String, Entry> entries = new HashMap<String, Entry>(count * 2);
+            for (int i = 0; i < count; i++) {
+                final String key = in.readUTF();
+                entries.put(key, new Entry(in.readInt(), in.readUnsignedShort(), in.readUnsignedShort()));
+            }
+            final long offset = file.getFilePointer();
+            final FileChannel channel = file.getChannel();
+            final IntBuffer pixels = channel.map(FileChannel.MapMode.READ_ONLY, offset, channel.size() - offset)
+                                            .asIntBuffer();
+            return new ThumbnailAtlas(entries, pixels);
+        } catch (IOException e) {
+            LOGGER.warn(e);
+        } finally {
+            IOUtils.closeQuietly(file);
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the given thumbnails and stores them as atlas under the given name. Missing or unreadable thumbnails
+     * are left out.
+     */
+    public static void build(String name, long stamp, Map<String, String> thumbnails) throws IOException {
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        final DataOutputStream index = new DataOutputStream(header);
+        final List<int[]> images = new ArrayList<int[]>(thumbnails.size());
+        int offset = 0;
+        int count = 0;
+        for (Map.Entry<String, String> thumbnail : thumbnails.entrySet()) {
+            final BufferedImage image = read(thumbnail.getValue());
+            if (image == null) {
+                continue;
+            }
+            final int width = image.getWidth();
+            final int height = image.getHeight();
+            index.writeUTF(thumbnail.getKey());
+            index.writeInt(offset);
+            index.writeShort(width);
+            index.writeShort(height);
+            images.add(image.getRGB(0, 0, width, height, null, 0, width));
+            offset += width * height;
+            count++;
+        }
+        index.flush();
+
+        final File atlasDir = getAtlasDir();
+        FileUtils.forceMkdir(atlasDir);
+        final File tempFile = File.createTempFile(name, ".tmp", atlasDir);
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(header.size() + 12);
+            out.writeLong(stamp);
+            out.writeInt(count);
+            header.writeTo(out);
+            for (int[] image : images) {
+                for (int pixel : image) {
+                    out.writeInt(pixel);
+                }
+            }
+            out.close();
+            final File atlasFile = new File(atlasDir, name + ".atlas");
+            FileUtils.deleteQuietly(atlasFile);
+            if (!tempFile.renameTo(atlasFile)) {
+                throw new IOException("Couldn't move atlas to " + atlasFile);
+            }
+            LOGGER.info(String.format("Built thumbnail atlas %s (%d of %d thumbnails)", name, count, thumbnails.size()));
+        } finally {
+            IOUtils.closeQuietly(out);
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * @return the decoded icon pack image or null, if there is no such image.
+     */
+    @Nullable
+    static BufferedImage read(String imagePath) {
+        InputStream in = null;
+        try {
+            in = AssetStore.getInstance().open(imagePath);
+            return in == null ? null : ImageIO.read(in);
+        } catch (IOException e) {
+            LOGGER.warn(e);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        return null;
+    }
+
+    /**
+     * @return the thumbnail stored for the given key or null, if the atlas doesn't contain it.
+     */
+    @Nullable
+    public BufferedImage get(String key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        final int[] data = new int[entry.width * entry.height];
+        final IntBuffer buffer = pixels.duplicate();
+        buffer.position(entry.offset);
+        buffer.get(data);
+        final BufferedImage image = new BufferedImage(entry.width, entry.height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, entry.width, entry.height, data, 0, entry.width);
+        return image;
+    }
+
+    private static class Entry {
+        private final int offset;
+        private final int width;
+        private final int height;
+
+        private Entry(int offset, int width, int height) {
+            this.offset = offset;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 Marc Prengemann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 			http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+package de.mprengemann.intellij.plugin.androidicons.util;
+
+import com.intellij.openapi.diagnostic.Logger;
+import de.mprengemann.intellij.plugin.androidicons.controllers.icons.IIconPackController;
+import de.mprengemann.intellij.plugin.androidicons.model.IconPack;
+import de.mprengemann.intellij.plugin.androidicons.model.ImageAsset;
+import de.mprengemann.intellij.plugin.androidicons.model.Resolution;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thumbnails of the icon pack assets, shared by all dialogs. Thumbnails are loaded on a background thread, the
+ * components showing them are repainted once they are available. The cache holds the thumbnails softly and keeps at
+ * most {@link #MAX_ENTRIES} of them. Thumbnails of prepared icon packs are read from their {@link ThumbnailAtlas}.
+ */
+public class ThumbnailCache {
+
+    private static final Logger LOGGER = Logger.getInstance(ThumbnailCache.class);
+    private static final int MAX_ENTRIES = 4096;
+
+    private static final Map<Key, SoftReference<Icon>> CACHE =
+        new LinkedHashMap<Key, SoftReference<Icon>>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<Icon>> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    private static final Set<Key> PENDING = new HashSet<Key>();
+    // Only accessed by the executor thread
+    private static final Map<String, ThumbnailAtlas> ATLASES = new HashMap<String, ThumbnailAtlas>();
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            final Thread thread = new Thread(runnable, ThumbnailCache.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ThumbnailCache() {
+    }
+
+    /**
+     * Opens the thumbnail atlas of the given icon pack, building it first if it doesn't exist yet. Thumbnails requested
+     * after this call are read from the atlas. An atlas, which couldn't be built, is tried again on the next call.
+     *
+     * @return the pending preparation, which is done once the atlas is open, or null if there is no icon pack
+     */
+    @Nullable
+    public static Future<?> prepareAtlas(IIconPackController iconPackController) {
+        final IconPack iconPack = iconPackController.getIconPack();
+        if (iconPack == null) {
+            return null;
+        }
+        final Resolution resolution = iconPackController.getThumbnailResolution();
+        final Map<String, String> thumbnails = new HashMap<String, String>();
+        for (ImageAsset asset : iconPack.getAssets()) {
+            thumbnails.put(ThumbnailAtlas.getKey(asset), iconPackController.getImagePath(asset, "black", resolution));
+        }
+        return prepareAtlas(ThumbnailAtlas.getName(iconPack.getId(), resolution), thumbnails);
+    }
+
+    private static Future<?> prepareAtlas(final String name, final Map<String, String> thumbnails) {
+        return EXECUTOR.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (ATLASES.containsKey(name)) {
+                    return;
+                }
+                final long stamp = ThumbnailAtlas.getStamp(thumbnails);
+                ThumbnailAtlas atlas = ThumbnailAtlas.open(name, stamp);
+                if (atlas == null) {
+                    try {
+                        ThumbnailAtlas.build(name, stamp, thumbnails);
+                        atlas = ThumbnailAtlas.open(name, stamp);
+                    } catch (IOException e) {
+                        LOGGER.warn(e);
+                    }
+                }
+                if (atlas != null) {
+                    ATLASES.put(name, atlas);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the thumbnail of the asset or null, if it's not loaded yet. In this case it's loaded asynchronously and
+     * the given component is repainted afterwards.
+     */
+    @Nullable
+    public static Icon get(final ImageAsset asset,
+                           final Resolution resolution,
+                           @Nullable final String imagePath,
+                           final Component... repaintTargets) {
+        final Key key = new Key(asset, resolution);
+        synchronized (CACHE) {
+            final SoftReference<Icon> reference = CACHE.get(key);
+            final Icon icon = reference == null ? null : reference.get();
+            if (icon != null || imagePath == null || !PENDING.add(key)) {
+                return icon;
+            }
+        }
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Icon icon = load(asset, resolution, imagePath);
+                synchronized (CACHE) {
+                    PENDING.remove(key);
+                    if (icon != null) {
+                        CACHE.put(key, new SoftReference<Icon>(icon));
+                    }
+                }
+                if (icon == null) {
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (Component repaintTarget : repaintTargets) {
+                            repaintTarget.repaint();
+                        }
+                    }
+                });
+            }
+        });
+        return null;
+    }
+
+    @Nullable
+    private static Icon load(ImageAsset asset, Resolution resolution, String imagePath) {
+        final ThumbnailAtlas atlas = ATLASES.get(ThumbnailAtlas.getName(asset.getIconPack(), resolution));
+        if (atlas != null) {
+            final BufferedImage image = atlas.get(ThumbnailAtlas.getKey(asset));
+            if (image != null) {
+                return new ImageIcon(image);
+            }
+        }
+        final BufferedImage image = ThumbnailAtlas.read(imagePath);
+        return image == null ? null : new ImageIcon(image);
+    }
+
+    private static class Key {
+        private final ImageAsset asset;
+        private final Resolution resolution;
+
+        private Key(ImageAsset asset, Resolution resolution) {
+            this.asset = asset;
+            this.resolution = resolution;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            return asset.equals(key.asset) && resolution == key.resolution;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = asset.hashCode();
+            result = 31 * result + resolution.hashCode();
+            return result;
+        }
+    }
+}